@@ -0,0 +1,95 @@
+package com.testgunmod.projectile;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One tick of trajectory integration for a whole population of bullets: the
+ * closed form used by the mod against the per-tick drag and gravity update it
+ * replaced. Both read the same spawn state and write the next positions to
+ * separate arrays, so every invocation does the same work on the same values.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BallisticsBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int bullets;
+
+    private double[] x;
+    private double[] y;
+    private double[] z;
+    private double[] vx;
+    private double[] vy;
+    private double[] vz;
+    private int[] age;
+
+    // Results of one tick; never read back, so the inputs stay as set up.
+    private double[] nextX;
+    private double[] nextY;
+    private double[] nextZ;
+    private double[] nextVx;
+    private double[] nextVy;
+    private double[] nextVz;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        x = new double[bullets];
+        y = new double[bullets];
+        z = new double[bullets];
+        vx = new double[bullets];
+        vy = new double[bullets];
+        vz = new double[bullets];
+        age = new int[bullets];
+        nextX = new double[bullets];
+        nextY = new double[bullets];
+        nextZ = new double[bullets];
+        nextVx = new double[bullets];
+        nextVy = new double[bullets];
+        nextVz = new double[bullets];
+        for (int i = 0; i < bullets; i++) {
+            x[i] = random.nextDouble(-1000, 1000);
+            y[i] = random.nextDouble(60, 120);
+            z[i] = random.nextDouble(-1000, 1000);
+            vx[i] = random.nextDouble(-4, 4);
+            vy[i] = random.nextDouble(-1, 1);
+            vz[i] = random.nextDouble(-4, 4);
+            age[i] = random.nextInt(1200);
+        }
+    }
+
+    @Benchmark
+    public void closedForm(Blackhole blackhole) {
+        for (int i = 0; i < bullets; i++) {
+            int ticks = age[i] + 1;
+            nextX[i] = Ballistics.horizontal(x[i], vx[i], ticks);
+            nextY[i] = Ballistics.vertical(y[i], vy[i], ticks);
+            nextZ[i] = Ballistics.horizontal(z[i], vz[i], ticks);
+        }
+        blackhole.consume(nextX);
+        blackhole.consume(nextY);
+        blackhole.consume(nextZ);
+    }
+
+    @Benchmark
+    public void iterative(Blackhole blackhole) {
+        for (int i = 0; i < bullets; i++) {
+            nextX[i] = x[i] + vx[i];
+            nextY[i] = y[i] + vy[i];
+            nextZ[i] = z[i] + vz[i];
+            nextVx[i] = vx[i] * Ballistics.AIR_DRAG;
+            nextVy[i] = vy[i] - Ballistics.GRAVITY;
+            nextVz[i] = vz[i] * Ballistics.AIR_DRAG;
+        }
+        blackhole.consume(nextX);
+        blackhole.consume(nextVx);
+    }
+}
@@ -0,0 +1,60 @@
+package com.testgunmod.projectile;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spawn and despawn churn on a populated store: each operation retires about
+ * a tenth of the bullets in a backwards pass, as the manager does, and spawns
+ * the same number back.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulletStoreBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int bullets;
+
+    private BulletStore store;
+    private SplittableRandom random;
+    private int nextId;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        store = new BulletStore();
+        random = new SplittableRandom(42);
+        nextId = 0;
+        for (int i = 0; i < bullets; i++) {
+            spawn();
+        }
+    }
+
+    @Benchmark
+    public int churn() {
+        int removed = 0;
+        for (int i = store.size() - 1; i >= 0; i--) {
+            if (random.nextInt(10) == 0) {
+                store.remove(i);
+                removed++;
+            } else {
+                store.setAge(i, store.age(i) + 1);
+            }
+        }
+        for (int i = 0; i < removed; i++) {
+            spawn();
+        }
+        return store.size();
+    }
+
+    private void spawn() {
+        store.add(nextId++, random.nextDouble(-1000, 1000), random.nextDouble(60, 120), random.nextDouble(-1000, 1000),
+                random.nextDouble(-4, 4), random.nextDouble(-1, 1), random.nextDouble(-4, 4),
+                10.0f, -1, random.nextInt());
+    }
+}
@@ -0,0 +1,61 @@
+package com.testgunmod.projectile;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Segment against entity box tests, one per bullet, with roughly one in ten
+ * segments passing through its box.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntersectionsBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int bullets;
+
+    // Per bullet: origin xyz, delta xyz, box min xyz, box max xyz.
+    private double[] data;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        data = new double[bullets * 12];
+        for (int i = 0; i < bullets; i++) {
+            int o = i * 12;
+            double boxX = random.nextDouble(-8, 8);
+            double boxY = random.nextDouble(-8, 8);
+            double boxZ = random.nextDouble(-8, 8);
+            boolean aimed = random.nextInt(10) == 0;
+
+            data[o] = random.nextDouble(-8, 8);
+            data[o + 1] = random.nextDouble(-8, 8);
+            data[o + 2] = random.nextDouble(-8, 8);
+            data[o + 3] = aimed ? boxX + 0.3 - data[o] : random.nextDouble(-4, 4);
+            data[o + 4] = aimed ? boxY + 0.9 - data[o + 1] : random.nextDouble(-1, 1);
+            data[o + 5] = aimed ? boxZ + 0.3 - data[o + 2] : random.nextDouble(-4, 4);
+            data[o + 6] = boxX;
+            data[o + 7] = boxY;
+            data[o + 8] = boxZ;
+            data[o + 9] = boxX + 0.6;
+            data[o + 10] = boxY + 1.8;
+            data[o + 11] = boxZ + 0.6;
+        }
+    }
+
+    @Benchmark
+    public void segmentAabb(Blackhole blackhole) {
+        double[] d = data;
+        for (int o = 0; o < d.length; o += 12) {
+            blackhole.consume(Intersections.segmentAabb(d[o], d[o + 1], d[o + 2], d[o + 3], d[o + 4], d[o + 5],
+                    d[o + 6], d[o + 7], d[o + 8], d[o + 9], d[o + 10], d[o + 11]));
+        }
+    }
+}
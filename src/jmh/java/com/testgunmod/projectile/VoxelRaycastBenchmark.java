@@ -0,0 +1,102 @@
+package com.testgunmod.projectile;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One tick of block raycasting per bullet through a synthetic 64-block cube:
+ * solid ground, scattered full-block pillars and slabs as complex blocks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoxelRaycastBenchmark {
+
+    private static final int SIZE = 64;
+    private static final int GROUND = 16;
+
+    @Param({"1000", "10000", "100000"})
+    public int bullets;
+
+    private SyntheticChunk chunk;
+
+    // Per bullet: from xyz, to xyz.
+    private double[] segments;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(42);
+        chunk = new SyntheticChunk(random);
+
+        segments = new double[bullets * 6];
+        for (int i = 0; i < bullets; i++) {
+            int o = i * 6;
+            segments[o] = random.nextDouble(4, SIZE - 4);
+            segments[o + 1] = random.nextDouble(GROUND, SIZE - 4);
+            segments[o + 2] = random.nextDouble(4, SIZE - 4);
+            // A tick of travel at turret speed, slightly downward.
+            segments[o + 3] = segments[o] + random.nextDouble(-4, 4);
+            segments[o + 4] = segments[o + 1] + random.nextDouble(-1, 0.2);
+            segments[o + 5] = segments[o + 2] + random.nextDouble(-4, 4);
+        }
+    }
+
+    @Benchmark
+    public void trace(Blackhole blackhole) {
+        double[] s = segments;
+        for (int o = 0; o < s.length; o += 6) {
+            blackhole.consume(VoxelRaycast.trace(chunk, s[o], s[o + 1], s[o + 2], s[o + 3], s[o + 4], s[o + 5]));
+        }
+    }
+
+    private static final class SyntheticChunk implements VoxelSource {
+
+        private final byte[] flags = new byte[SIZE * SIZE * SIZE];
+
+        SyntheticChunk(SplittableRandom random) {
+            for (int x = 0; x < SIZE; x++) {
+                for (int z = 0; z < SIZE; z++) {
+                    for (int y = 0; y < GROUND; y++) {
+                        flags[index(x, y, z)] = FULL;
+                    }
+                    int roll = random.nextInt(100);
+                    if (roll < 3) {
+                        int height = random.nextInt(2, 12);
+                        for (int y = GROUND; y < GROUND + height; y++) {
+                            flags[index(x, y, z)] = FULL;
+                        }
+                    } else if (roll < 6) {
+                        flags[index(x, GROUND, z)] = COMPLEX;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public byte flags(int x, int y, int z) {
+            if (x < 0 || y < 0 || z < 0 || x >= SIZE || y >= SIZE || z >= SIZE) {
+                return EMPTY;
+            }
+            return flags[index(x, y, z)];
+        }
+
+        @Override
+        public double clipComplex(int x, int y, int z,
+                                  double fromX, double fromY, double fromZ,
+                                  double toX, double toY, double toZ) {
+            // Bottom slab.
+            return Intersections.segmentAabb(fromX, fromY, fromZ, toX - fromX, toY - fromY, toZ - fromZ,
+                    x, y, z, x + 1.0, y + 0.5, z + 1.0);
+        }
+
+        private static int index(int x, int y, int z) {
+            return (y * SIZE + z) * SIZE + x;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.testgunmod;
+
+import com.testgunmod.projectile.HitAccumulator;
+import net.minecraftforge.common.ForgeConfigSpec;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.event.config.ModConfigEvent;
+
+@Mod.EventBusSubscriber(modid = TestGunMod.MOD_ID, bus = Mod.EventBusSubscriber.Bus.MOD)
+public class Config {
+
+    private static final ForgeConfigSpec.Builder SERVER_BUILDER = new ForgeConfigSpec.Builder();
+
+    private static final ForgeConfigSpec.BooleanValue VIRTUAL_PROJECTILES = SERVER_BUILDER
+            .comment("Simulate bullets in a per-level projectile manager instead of spawning a BulletEntity per shot")
+            .define("projectiles.virtualProjectiles", false);
+
+    private static final ForgeConfigSpec.DoubleValue CORRECTION_THRESHOLD = SERVER_BUILDER
+            .comment("Distance in blocks a bullet entity may drift from its predicted trajectory before clients are corrected")
+            .defineInRange("projectiles.correctionThreshold", 0.25, 0.01, 16.0);
+
+    private static final ForgeConfigSpec.BooleanValue PARALLEL_STEPPING = SERVER_BUILDER
+            .comment("Compute virtual bullet movement and collisions on a worker pool; hits are still applied on the server thread")
+            .define("projectiles.parallelStepping", false);
+
+    private static final ForgeConfigSpec.IntValue PARALLEL_THRESHOLD = SERVER_BUILDER
+            .comment("Minimum number of virtual bullets in a level before its update is split across workers")
+            .defineInRange("projectiles.parallelThreshold", 512, 1, Integer.MAX_VALUE);
+
+    private static final ForgeConfigSpec.IntValue PARALLEL_THREADS = SERVER_BUILDER
+            .comment("Worker threads for parallel stepping; 0 uses one less than the number of cores. Takes effect on restart")
+            .defineInRange("projectiles.parallelThreads", 0, 0, 256);
+
+    private static final ForgeConfigSpec.DoubleValue MAX_PATH_ERROR = SERVER_BUILDER
+            .comment("How far in blocks a bullet's collision path may stray from its curved trajectory within a tick; lower values split curved ticks into more sub-steps")
+            .defineInRange("projectiles.maxPathError", 0.01, 0.0001, 1.0);
+
+    private static final ForgeConfigSpec.IntValue MAX_SUB_STEPS = SERVER_BUILDER
+            .comment("Upper limit on collision sub-steps per bullet per tick")
+            .defineInRange("projectiles.maxSubSteps", 8, 1, 64);
+
+    private static final ForgeConfigSpec.IntValue HITSCAN_TICKS = SERVER_BUILDER
+            .comment("Ticks of each shot resolved instantly when it is fired; shots that hit within them never become bullets",
+                    "and clients only see a tracer. 0 disables the hitscan window")
+            .defineInRange("projectiles.hitscanTicks", 4, 0, 40);
+
+    private static final ForgeConfigSpec.DoubleValue SCHEDULER_NEAR_DISTANCE = SERVER_BUILDER
+            .comment("Bullets within this many blocks of a player check collisions every tick; further out they check",
+                    "every 2, 4 or 8 ticks, doubling with each doubling of the distance, over the whole path flown since")
+            .defineInRange("scheduler.nearDistance", 64.0, 1.0, 4096.0);
+
+    private static final ForgeConfigSpec.IntValue SCHEDULER_MAX_INTERVAL = SERVER_BUILDER
+            .comment("Most ticks between collision checks for bullets far from players, rounded down to a power of two; 1 checks every bullet every tick")
+            .defineInRange("scheduler.maxInterval", 8, 1, 8);
+
+    private static final ForgeConfigSpec.BooleanValue BUDGET_ENABLED = SERVER_BUILDER
+            .comment("Cap live bullets and degrade bullet behaviour step by step while the server is overloaded")
+            .define("budget.enabled", true);
+
+    private static final ForgeConfigSpec.DoubleValue BUDGET_RAISE_MSPT = SERVER_BUILDER
+            .comment("Average milliseconds per tick above which the budget pressure goes up one step each second")
+            .defineInRange("budget.raiseMspt", 45.0, 1.0, 1000.0);
+
+    private static final ForgeConfigSpec.DoubleValue BUDGET_LOWER_MSPT = SERVER_BUILDER
+            .comment("Average milliseconds per tick below which the budget pressure goes down one step each second")
+            .defineInRange("budget.lowerMspt", 35.0, 1.0, 1000.0);
+
+    private static final ForgeConfigSpec.IntValue MAX_BULLETS_PER_LEVEL = SERVER_BUILDER
+            .comment("Most bullets alive in one level; further shots are dropped")
+            .defineInRange("budget.maxBulletsPerLevel", 20000, 1, Integer.MAX_VALUE);
+
+    private static final ForgeConfigSpec.IntValue MAX_BULLETS_PER_CHUNK = SERVER_BUILDER
+            .comment("Most live bullets fired from one chunk; further shots from that chunk are dropped")
+            .defineInRange("budget.maxBulletsPerChunk", 1024, 1, Integer.MAX_VALUE);
+
+    private static final ForgeConfigSpec.EnumValue<HitAccumulator.Stacking> DAMAGE_STACKING = SERVER_BUILDER
+            .comment("How bullet hits on one target in the same tick combine into the single hit applied at the end of the tick:",
+                    "SUM adds them, MAX keeps the strongest, SUM_CAPPED adds them up to damage.stackCap")
+            .defineEnum("damage.stacking", HitAccumulator.Stacking.SUM);
+
+    private static final ForgeConfigSpec.DoubleValue DAMAGE_STACK_CAP = SERVER_BUILDER
+            .comment("Most damage one target takes from bullets per tick with SUM_CAPPED stacking")
+            .defineInRange("damage.stackCap", 40.0, 0.0, 1000000.0);
+
+    private static final ForgeConfigSpec.DoubleValue INTEREST_RANGE = SERVER_BUILDER
+            .comment("Players are only sent bullets within this many blocks, or bullets whose path passes close to them")
+            .defineInRange("network.interestRange", 96.0, 16.0, 1024.0);
+
+    private static final ForgeConfigSpec.DoubleValue FULL_RATE_DISTANCE = SERVER_BUILDER
+            .comment("Bullets this close to a player are always sent to them in full")
+            .defineInRange("network.fullRateDistance", 24.0, 0.0, 1024.0);
+
+    private static final ForgeConfigSpec.IntValue MAX_BULLETS_PER_PLAYER = SERVER_BUILDER
+            .comment("Most new bullets sent to one player per tick; bullets out of view or heading away get at most half of this")
+            .defineInRange("network.maxBulletsPerPlayer", 256, 1, 65536);
+
+    private static final ForgeConfigSpec.IntValue METRICS_EXPORT_INTERVAL = SERVER_BUILDER
+            .comment("Seconds between rows appended to testgunmod-metrics.csv for each level with bullets; 0 disables the export.",
+                    "Counters are reset after each row, so every row covers one interval")
+            .defineInRange("metrics.exportInterval", 0, 0, 86400);
+
+    static final ForgeConfigSpec SERVER_SPEC = SERVER_BUILDER.build();
+
+    private static final ForgeConfigSpec.Builder CLIENT_BUILDER = new ForgeConfigSpec.Builder();
+
+    private static final ForgeConfigSpec.IntValue MAX_RENDER_DISTANCE = CLIENT_BUILDER
+            .comment("Bullets further than this many blocks from the camera are not drawn")
+            .defineInRange("render.maxRenderDistance", 256, 16, 1024);
+
+    private static final ForgeConfigSpec.IntValue TRACER_DISTANCE = CLIENT_BUILDER
+            .comment("Bullets further than this many blocks are drawn as a single tracer quad instead of a box")
+            .defineInRange("render.tracerDistance", 48, 0, 1024);
+
+    private static final ForgeConfigSpec.IntValue SAMPLED_DISTANCE = CLIENT_BUILDER
+            .comment("Bullets further than this many blocks are only drawn for one in every sampleRate bullets")
+            .defineInRange("render.sampledDistance", 160, 0, 1024);
+
+    private static final ForgeConfigSpec.IntValue SAMPLE_RATE = CLIENT_BUILDER
+            .comment("Draw one in this many bullets beyond sampledDistance")
+            .defineInRange("render.sampleRate", 4, 1, 64);
+
+    private static final ForgeConfigSpec.IntValue MAX_GUNFIRE_VOICES = CLIENT_BUILDER
+            .comment("Most looping gunfire sounds playing at once; the loudest areas of fire get them")
+            .defineInRange("audio.maxGunfireVoices", 6, 1, 32);
+
+    static final ForgeConfigSpec CLIENT_SPEC = CLIENT_BUILDER.build();
+
+    public static boolean virtualProjectiles;
+    public static double correctionThreshold;
+    public static boolean parallelStepping;
+    public static int parallelThreshold;
+    public static int parallelThreads;
+    public static double maxPathError;
+    public static int maxSubSteps;
+    public static int hitscanTicks;
+    public static double schedulerNearDistance;
+    public static int schedulerMaxInterval;
+    public static boolean budgetEnabled;
+    public static double budgetRaiseMspt;
+    public static double budgetLowerMspt;
+    public static int maxBulletsPerLevel;
+    public static int maxBulletsPerChunk;
+    public static HitAccumulator.Stacking damageStacking = HitAccumulator.Stacking.SUM;
+    public static double damageStackCap;
+    public static double interestRange;
+    public static double fullRateDistance;
+    public static int maxBulletsPerPlayer;
+    public static int metricsExportInterval;
+
+    public static int maxRenderDistance;
+    public static int tracerDistance;
+    public static int sampledDistance;
+    public static int sampleRate;
+    public static int maxGunfireVoices = 6;
+
+    @SubscribeEvent
+    static void onLoad(final ModConfigEvent event) {
+        if (event.getConfig().getSpec() == SERVER_SPEC) {
+            virtualProjectiles = VIRTUAL_PROJECTILES.get();
+            correctionThreshold = CORRECTION_THRESHOLD.get();
+            parallelStepping = PARALLEL_STEPPING.get();
+            parallelThreshold = PARALLEL_THRESHOLD.get();
+            parallelThreads = PARALLEL_THREADS.get();
+            maxPathError = MAX_PATH_ERROR.get();
+            maxSubSteps = MAX_SUB_STEPS.get();
+            hitscanTicks = HITSCAN_TICKS.get();
+            schedulerNearDistance = SCHEDULER_NEAR_DISTANCE.get();
+            schedulerMaxInterval = SCHEDULER_MAX_INTERVAL.get();
+            budgetEnabled = BUDGET_ENABLED.get();
+            budgetRaiseMspt = BUDGET_RAISE_MSPT.get();
+            budgetLowerMspt = BUDGET_LOWER_MSPT.get();
+            maxBulletsPerLevel = MAX_BULLETS_PER_LEVEL.get();
+            maxBulletsPerChunk = MAX_BULLETS_PER_CHUNK.get();
+            damageStacking = DAMAGE_STACKING.get();
+            damageStackCap = DAMAGE_STACK_CAP.get();
+            interestRange = INTEREST_RANGE.get();
+            fullRateDistance = FULL_RATE_DISTANCE.get();
+            maxBulletsPerPlayer = MAX_BULLETS_PER_PLAYER.get();
+            metricsExportInterval = METRICS_EXPORT_INTERVAL.get();
+        } else if (event.getConfig().getSpec() == CLIENT_SPEC) {
+            maxRenderDistance = MAX_RENDER_DISTANCE.get();
+            tracerDistance = TRACER_DISTANCE.get();
+            sampledDistance = SAMPLED_DISTANCE.get();
+            sampleRate = SAMPLE_RATE.get();
+            maxGunfireVoices = MAX_GUNFIRE_VOICES.get();
+        }
+    }
+}
@@ -1,12 +1,10 @@
 package com.testgunmod.block;
 
-import com.testgunmod.entity.BulletEntity;
-import com.testgunmod.entity.ModEntityTypes;
+import com.testgunmod.projectile.BulletSpawner;
+import com.testgunmod.projectile.TrajectoryTable;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.server.level.ServerLevel;
-import net.minecraft.sounds.SoundEvents;
-import net.minecraft.sounds.SoundSource;
 import net.minecraft.util.RandomSource;
 import net.minecraft.world.item.context.BlockPlaceContext;
 import net.minecraft.world.level.Level;
@@ -15,13 +13,22 @@ import net.minecraft.world.level.block.DirectionalBlock;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.StateDefinition;
 import net.minecraft.world.level.block.state.properties.DirectionProperty;
-import net.minecraft.world.phys.Vec3;
 
 public class GunTurretBlock extends Block {
 
     public static final DirectionProperty FACING = DirectionalBlock.FACING;
 
-    private static final int FIRE_RATE_TICKS = 1;
+    static final int FIRE_RATE_TICKS = 1;
+    static final float BULLET_DAMAGE = 10.0f;
+    static final double MUZZLE_VELOCITY = 4.0;
+
+    static {
+        // Every turret bullet leaves along one of six velocities; share their orientation tables.
+        for (Direction direction : Direction.values()) {
+            TrajectoryTable.register(direction.getStepX() * MUZZLE_VELOCITY,
+                    direction.getStepY() * MUZZLE_VELOCITY, direction.getStepZ() * MUZZLE_VELOCITY);
+        }
+    }
 
     public GunTurretBlock(Properties properties) {
         super(properties);
@@ -38,53 +45,49 @@ public class GunTurretBlock extends Block {
         return this.defaultBlockState().setValue(FACING, context.getNearestLookingDirection().getOpposite());
     }
 
+    @Override
+    public void onPlace(BlockState state, Level level, BlockPos pos, BlockState oldState, boolean isMoving) {
+        super.onPlace(state, level, pos, oldState, isMoving);
+        if (level instanceof ServerLevel serverLevel) {
+            TurretRegistry.get(serverLevel).setPowered(pos, level.hasNeighborSignal(pos));
+        }
+    }
+
     @Override
     public void neighborChanged(BlockState state, Level level, BlockPos pos,
                                 Block block, BlockPos fromPos, boolean isMoving) {
 
-        if (!level.isClientSide) {
-            if (level.hasNeighborSignal(pos)) {
-
-                level.scheduleTick(pos, this, FIRE_RATE_TICKS);
-            }
+        if (level instanceof ServerLevel serverLevel) {
+            TurretRegistry.get(serverLevel).setPowered(pos, level.hasNeighborSignal(pos));
         }
     }
 
+    // Turrets from worlds saved before the registry still have a scheduled tick pending;
+    // register them when it runs instead of firing from it.
     @Override
     public void tick(BlockState state, ServerLevel level, BlockPos pos, RandomSource random) {
-        if (level.hasNeighborSignal(pos)) {
-            shootBullet(level, pos, state);
+        TurretRegistry.get(level).setPowered(pos, level.hasNeighborSignal(pos));
+    }
 
-            level.scheduleTick(pos, this, FIRE_RATE_TICKS);
+    @Override
+    public void onRemove(BlockState state, Level level, BlockPos pos, BlockState newState, boolean isMoving) {
+        if (!state.is(newState.getBlock()) && level instanceof ServerLevel serverLevel) {
+            TurretRegistry.get(serverLevel).setPowered(pos, false);
         }
+        super.onRemove(state, level, pos, newState, isMoving);
     }
 
-    private void shootBullet(Level level, BlockPos pos, BlockState state) {
+    // Spawns one bullet; the caller records the shot with FireEvents for sound and smoke.
+    static void shootBullet(ServerLevel level, BlockPos pos, BlockState state, float damage) {
         Direction facing = state.getValue(FACING);
 
-        Vec3 spawnPos = Vec3.atCenterOf(pos).add(
-                facing.getStepX() * 0.6,
-                facing.getStepY() * 0.6,
-                facing.getStepZ() * 0.6
-        );
-
-        Vec3 velocity = new Vec3(
-                facing.getStepX() * 4.0,
-                facing.getStepY() * 4.0,
-                facing.getStepZ() * 4.0
-        );
-
-        BulletEntity bullet = new BulletEntity(
-                ModEntityTypes.BULLET.get(),
-                level,
-                spawnPos,
-                velocity,
-                10.0f
-        );
-
-        level.addFreshEntity(bullet);
-
-        level.playSound(null, pos, SoundEvents.GENERIC_EXPLODE,
-                SoundSource.BLOCKS, 0.5f, 1.5f);
+        BulletSpawner.spawn(level,
+                pos.getX() + 0.5 + facing.getStepX() * 0.6,
+                pos.getY() + 0.5 + facing.getStepY() * 0.6,
+                pos.getZ() + 0.5 + facing.getStepZ() * 0.6,
+                facing.getStepX() * MUZZLE_VELOCITY,
+                facing.getStepY() * MUZZLE_VELOCITY,
+                facing.getStepZ() * MUZZLE_VELOCITY,
+                damage, null);
     }
-}
\ No newline at end of file
+}
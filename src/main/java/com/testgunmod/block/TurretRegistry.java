@@ -0,0 +1,110 @@
+package com.testgunmod.block;
+
+import com.testgunmod.Config;
+import com.testgunmod.TestGunMod;
+import com.testgunmod.projectile.BulletBudget;
+import com.testgunmod.projectile.BulletManager;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.saveddata.SavedData;
+
+/**
+ * Powered gun turrets in a level, kept up to date from block updates and fired
+ * together once per fire interval instead of each turret rescheduling its own
+ * block tick.
+ */
+public class TurretRegistry extends SavedData {
+
+    private static final String DATA_NAME = TestGunMod.MOD_ID + "_turrets";
+
+    // Insertion ordered so turrets fire in a stable order across ticks and restarts.
+    private final LongLinkedOpenHashSet powered = new LongLinkedOpenHashSet();
+
+    private final LongArrayList stale = new LongArrayList();
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+
+    public static TurretRegistry get(ServerLevel level) {
+        return level.getDataStorage().computeIfAbsent(TurretRegistry::load, TurretRegistry::new, DATA_NAME);
+    }
+
+    private static TurretRegistry load(CompoundTag tag) {
+        TurretRegistry registry = new TurretRegistry();
+        for (long pos : tag.getLongArray("Powered")) {
+            registry.powered.add(pos);
+        }
+        return registry;
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag tag) {
+        tag.putLongArray("Powered", powered.toLongArray());
+        return tag;
+    }
+
+    public void setPowered(BlockPos pos, boolean isPowered) {
+        boolean changed = isPowered ? powered.add(pos.asLong()) : powered.remove(pos.asLong());
+        if (changed) {
+            setDirty();
+        }
+    }
+
+    public int size() {
+        return powered.size();
+    }
+
+    public void tick(ServerLevel level) {
+        if (powered.isEmpty()) {
+            return;
+        }
+
+        BulletManager manager = BulletManager.get(level);
+        BulletBudget budget = manager.budget();
+        int interval = GunTurretBlock.FIRE_RATE_TICKS * budget.fireIntervalScale();
+        float damage = GunTurretBlock.BULLET_DAMAGE * budget.burstSize();
+        long gameTime = level.getGameTime();
+
+        if (Config.virtualProjectiles) {
+            manager.reserve(interval == 1 ? powered.size() : powered.size() / interval + 1);
+        }
+
+        LongIterator iterator = powered.iterator();
+        while (iterator.hasNext()) {
+            long key = iterator.nextLong();
+            // Spread turrets over the interval so throttled volleys do not all land on one tick.
+            if (interval > 1 && Math.floorMod(gameTime + HashCommon.mix(key), interval) != 0) {
+                continue;
+            }
+
+            cursor.set(key);
+            // Only where scheduled block ticks would have run, not in border or lazy chunks.
+            if (!level.shouldTickBlocksAt(cursor)) {
+                continue;
+            }
+
+            BlockState state = level.getBlockState(cursor);
+            if (!(state.getBlock() instanceof GunTurretBlock)) {
+                // Removed without an update reaching us, e.g. by a structure or another mod.
+                stale.add(key);
+                continue;
+            }
+
+            GunTurretBlock.shootBullet(level, cursor, state, damage);
+            manager.metrics().recordTurretShot(key);
+            manager.fireEvents().record(key);
+        }
+
+        if (!stale.isEmpty()) {
+            for (int i = 0; i < stale.size(); i++) {
+                powered.remove(stale.getLong(i));
+            }
+            stale.clear();
+            setDirty();
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.testgunmod.client;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.BufferBuilder;
+import com.mojang.blaze3d.vertex.DefaultVertexFormat;
+import com.mojang.blaze3d.vertex.VertexFormat;
+import com.testgunmod.Config;
+import com.testgunmod.entity.BulletEntity;
+import com.testgunmod.projectile.Ballistics;
+import com.testgunmod.projectile.BulletStore;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.client.renderer.LevelRenderer;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.client.renderer.texture.OverlayTexture;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.util.Mth;
+import net.minecraft.world.phys.Vec3;
+import net.minecraftforge.client.event.RenderLevelStageEvent;
+import org.joml.FrustumIntersection;
+import org.joml.Matrix3f;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+
+import java.util.Set;
+
+/**
+ * Draws every bullet, entity-backed or virtual, into one vertex buffer per
+ * frame. The bullet's orientation basis comes straight from its velocity, so
+ * each bullet costs eight corner transforms and no pose stack operations.
+ * <p>
+ * Bullets outside the view frustum or past {@link Config#maxRenderDistance}
+ * are skipped. Past {@link Config#tracerDistance} a bullet is a single
+ * camera-facing tracer quad, and past {@link Config#sampledDistance} only one
+ * in {@link Config#sampleRate} tracers is drawn.
+ */
+public class BulletBatchRenderer {
+
+    public static final ResourceLocation TEXTURE =
+            new ResourceLocation("testgunmod", "textures/entity/bullet.png");
+
+    private static final RenderType RENDER_TYPE = RenderType.entityCutout(TEXTURE);
+
+    private static final int VERTICES_PER_BULLET = 24;
+    private static final int INITIAL_BULLET_CAPACITY = 2048;
+
+    // A 2x2x6 pixel box, centred on the bullet and lifted one pixel, with a 16x16 texture at offset (-4, -4).
+    private static final float HALF_WIDTH = 1.0f / 16.0f;
+    private static final float HALF_LENGTH = 3.0f / 16.0f;
+    private static final float LIFT = 1.0f / 16.0f;
+
+    // Tracers keep roughly a pixel of width at any distance and sample a flat texel of the bullet texture.
+    private static final float TRACER_WIDTH_PER_BLOCK = 0.0015f;
+    private static final float TRACER_U = 3.0f;
+    private static final float TRACER_V = 3.0f;
+
+    private static final float[] CORNER_X = {-HALF_WIDTH, HALF_WIDTH, HALF_WIDTH, -HALF_WIDTH, -HALF_WIDTH, HALF_WIDTH, HALF_WIDTH, -HALF_WIDTH};
+    private static final float[] CORNER_Y = {-HALF_WIDTH, -HALF_WIDTH, HALF_WIDTH, HALF_WIDTH, -HALF_WIDTH, -HALF_WIDTH, HALF_WIDTH, HALF_WIDTH};
+    private static final float[] CORNER_Z = {-HALF_LENGTH, -HALF_LENGTH, -HALF_LENGTH, -HALF_LENGTH, HALF_LENGTH, HALF_LENGTH, HALF_LENGTH, HALF_LENGTH};
+
+    // Per face: four corner indices, then the face normal as an index into
+    // {+right, -right, +up, -up, +forward, -forward}.
+    private static final int[][] FACES = {
+            {5, 4, 0, 1, 3},
+            {2, 3, 7, 6, 2},
+            {0, 4, 7, 3, 1},
+            {1, 0, 3, 2, 5},
+            {5, 1, 2, 6, 0},
+            {4, 5, 6, 7, 4},
+    };
+
+    // Per face: u1, v1, u2, v2 in texels; vertices take (u2,v1) (u1,v1) (u1,v2) (u2,v2).
+    private static final float[][] FACE_UVS = {
+            {2, -4, 4, 2},
+            {4, 2, 6, -4},
+            {-4, 2, 2, 4},
+            {2, 2, 4, 4},
+            {4, 2, 10, 4},
+            {10, 2, 12, 4},
+    };
+
+    private static final Set<BulletEntity> ENTITIES = new ReferenceOpenHashSet<>();
+
+    private static BufferBuilder buffer;
+
+    private static final Vector3f[] CORNERS = new Vector3f[8];
+    private static final Vector3f[] NORMALS = new Vector3f[6];
+    private static final BlockPos.MutableBlockPos LIGHT_POS = new BlockPos.MutableBlockPos();
+
+    private static final Matrix4f VIEW_PROJECTION = new Matrix4f();
+    private static final FrustumIntersection FRUSTUM = new FrustumIntersection();
+
+    // Per-frame state, set at the start of render().
+    private static ClientLevel level;
+    private static Vec3 camera;
+    private static Matrix4f pose;
+    private static Matrix3f normal;
+    private static double maxDistanceSqr;
+    private static double tracerDistanceSqr;
+    private static double sampledDistanceSqr;
+
+    static {
+        for (int i = 0; i < CORNERS.length; i++) {
+            CORNERS[i] = new Vector3f();
+        }
+        for (int i = 0; i < NORMALS.length; i++) {
+            NORMALS[i] = new Vector3f();
+        }
+    }
+
+    private BulletBatchRenderer() {
+    }
+
+    public static void track(BulletEntity bullet) {
+        ENTITIES.add(bullet);
+    }
+
+    public static void untrack(BulletEntity bullet) {
+        ENTITIES.remove(bullet);
+    }
+
+    public static void clear() {
+        ENTITIES.clear();
+    }
+
+    public static void render(RenderLevelStageEvent event) {
+        ClientLevel clientLevel = Minecraft.getInstance().level;
+        BulletStore store = ClientBulletManager.get().store();
+        if (clientLevel == null || (ENTITIES.isEmpty() && store.size() == 0)) {
+            return;
+        }
+
+        if (buffer == null) {
+            buffer = new BufferBuilder(INITIAL_BULLET_CAPACITY * VERTICES_PER_BULLET
+                    * DefaultVertexFormat.NEW_ENTITY.getVertexSize());
+        }
+
+        level = clientLevel;
+        camera = event.getCamera().getPosition();
+        pose = event.getPoseStack().last().pose();
+        normal = event.getPoseStack().last().normal();
+        FRUSTUM.set(VIEW_PROJECTION.set(event.getProjectionMatrix()).mul(pose));
+        maxDistanceSqr = (double) Config.maxRenderDistance * Config.maxRenderDistance;
+        tracerDistanceSqr = (double) Config.tracerDistance * Config.tracerDistance;
+        sampledDistanceSqr = (double) Config.sampledDistance * Config.sampledDistance;
+        float partialTick = event.getPartialTick();
+
+        buffer.begin(VertexFormat.Mode.QUADS, DefaultVertexFormat.NEW_ENTITY);
+
+        for (BulletEntity bullet : ENTITIES) {
+            Vec3 velocity = bullet.getDeltaMovement();
+            submit(Mth.lerp(partialTick, bullet.xo, bullet.getX()),
+                    Mth.lerp(partialTick, bullet.yo, bullet.getY()),
+                    Mth.lerp(partialTick, bullet.zo, bullet.getZ()),
+                    velocity.x, velocity.y, velocity.z, bullet.getId());
+        }
+
+        for (int i = 0; i < store.size(); i++) {
+            int age = store.age(i);
+            int previousAge = Math.max(0, age - 1);
+            double vx = store.vx(i);
+            double vy = store.vy(i);
+            double vz = store.vz(i);
+
+            double x = Mth.lerp(partialTick,
+                    Ballistics.horizontal(store.x(i), vx, previousAge), Ballistics.horizontal(store.x(i), vx, age));
+            double y = Mth.lerp(partialTick,
+                    Ballistics.vertical(store.y(i), vy, previousAge), Ballistics.vertical(store.y(i), vy, age));
+            double z = Mth.lerp(partialTick,
+                    Ballistics.horizontal(store.z(i), vz, previousAge), Ballistics.horizontal(store.z(i), vz, age));
+
+            submit(x, y, z,
+                    Ballistics.horizontalVelocity(vx, age),
+                    Ballistics.verticalVelocity(vy, age),
+                    Ballistics.horizontalVelocity(vz, age),
+                    store.seed(i));
+        }
+
+        RENDER_TYPE.end(buffer, RenderSystem.getVertexSorting());
+        level = null;
+    }
+
+    private static void submit(double x, double y, double z, double vx, double vy, double vz, int sampleKey) {
+        double relX = x - camera.x;
+        double relY = y - camera.y;
+        double relZ = z - camera.z;
+        double distanceSqr = relX * relX + relY * relY + relZ * relZ;
+        if (distanceSqr > maxDistanceSqr) {
+            return;
+        }
+
+        if (distanceSqr > sampledDistanceSqr && Math.floorMod(sampleKey, Math.max(1, Config.sampleRate)) != 0) {
+            return;
+        }
+
+        // Cull against the segment swept during the last tick, padded by the box half-length.
+        float pad = HALF_LENGTH + LIFT;
+        if (!FRUSTUM.testAab(
+                (float) (Math.min(relX, relX - vx) - pad), (float) (Math.min(relY, relY - vy) - pad), (float) (Math.min(relZ, relZ - vz) - pad),
+                (float) (Math.max(relX, relX - vx) + pad), (float) (Math.max(relY, relY - vy) + pad), (float) (Math.max(relZ, relZ - vz) + pad))) {
+            return;
+        }
+
+        LIGHT_POS.set(x, y, z);
+        int light = LevelRenderer.getLightColor(level, LIGHT_POS);
+
+        if (distanceSqr > tracerDistanceSqr) {
+            emitTracer((float) relX, (float) relY, (float) relZ, vx, vy, vz, Math.sqrt(distanceSqr), light);
+        } else {
+            emitBox((float) relX, (float) relY, (float) relZ, vx, vy, vz, light);
+        }
+    }
+
+    private static void emitBox(float relX, float relY, float relZ, double vx, double vy, double vz, int light) {
+        // Same orientation as yaw = atan2(vx, vz), pitch = -atan2(vy, horizontal), without the trig.
+        double horizontal = Math.sqrt(vx * vx + vz * vz);
+        float rightX, rightY, rightZ, upX, upY, upZ, forwardX, forwardY, forwardZ;
+        if (horizontal < 0.001) {
+            float sign = vy > 0 ? 1.0f : -1.0f;
+            rightX = 1.0f;
+            rightY = 0.0f;
+            rightZ = 0.0f;
+            upX = 0.0f;
+            upY = 0.0f;
+            upZ = -sign;
+            forwardX = 0.0f;
+            forwardY = sign;
+            forwardZ = 0.0f;
+        } else {
+            double length = Math.sqrt(horizontal * horizontal + vy * vy);
+            rightX = (float) (vz / horizontal);
+            rightY = 0.0f;
+            rightZ = (float) (-vx / horizontal);
+            upX = (float) (-vy * vx / (horizontal * length));
+            upY = (float) (horizontal / length);
+            upZ = (float) (-vy * vz / (horizontal * length));
+            forwardX = (float) (vx / length);
+            forwardY = (float) (vy / length);
+            forwardZ = (float) (vz / length);
+        }
+
+        float centerX = relX;
+        float centerY = relY + LIFT;
+        float centerZ = relZ;
+
+        for (int c = 0; c < 8; c++) {
+            float lx = CORNER_X[c];
+            float ly = CORNER_Y[c];
+            float lz = CORNER_Z[c];
+            pose.transformPosition(
+                    centerX + rightX * lx + upX * ly + forwardX * lz,
+                    centerY + rightY * lx + upY * ly + forwardY * lz,
+                    centerZ + rightZ * lx + upZ * ly + forwardZ * lz,
+                    CORNERS[c]);
+        }
+
+        normal.transform(rightX, rightY, rightZ, NORMALS[0]);
+        NORMALS[1].set(NORMALS[0]).negate();
+        normal.transform(upX, upY, upZ, NORMALS[2]);
+        NORMALS[3].set(NORMALS[2]).negate();
+        normal.transform(forwardX, forwardY, forwardZ, NORMALS[4]);
+        NORMALS[5].set(NORMALS[4]).negate();
+
+        for (int f = 0; f < FACES.length; f++) {
+            int[] face = FACES[f];
+            float[] uv = FACE_UVS[f];
+            Vector3f n = NORMALS[face[4]];
+            vertex(CORNERS[face[0]], uv[2], uv[1], light, n);
+            vertex(CORNERS[face[1]], uv[0], uv[1], light, n);
+            vertex(CORNERS[face[2]], uv[0], uv[3], light, n);
+            vertex(CORNERS[face[3]], uv[2], uv[3], light, n);
+        }
+    }
+
+    private static void emitTracer(float relX, float relY, float relZ, double vx, double vy, double vz,
+                                   double distance, int light) {
+        // A quad from last tick's position to the current one, turned to face the camera.
+        float tailX = relX - (float) vx;
+        float tailY = relY - (float) vy;
+        float tailZ = relZ - (float) vz;
+
+        float sideX = (float) (vy * relZ - vz * relY);
+        float sideY = (float) (vz * relX - vx * relZ);
+        float sideZ = (float) (vx * relY - vy * relX);
+        float sideLength = Mth.sqrt(sideX * sideX + sideY * sideY + sideZ * sideZ);
+        if (sideLength < 1.0e-6f) {
+            return;
+        }
+
+        float halfWidth = (float) distance * TRACER_WIDTH_PER_BLOCK;
+        float scale = halfWidth / sideLength;
+        sideX *= scale;
+        sideY *= scale;
+        sideZ *= scale;
+
+        float inverseDistance = (float) (1.0 / distance);
+        normal.transform(-relX * inverseDistance, -relY * inverseDistance, -relZ * inverseDistance, NORMALS[0]);
+
+        pose.transformPosition(relX + sideX, relY + sideY, relZ + sideZ, CORNERS[0]);
+        pose.transformPosition(relX - sideX, relY - sideY, relZ - sideZ, CORNERS[1]);
+        pose.transformPosition(tailX - sideX, tailY - sideY, tailZ - sideZ, CORNERS[2]);
+        pose.transformPosition(tailX + sideX, tailY + sideY, tailZ + sideZ, CORNERS[3]);
+
+        for (int c = 0; c < 4; c++) {
+            vertex(CORNERS[c], TRACER_U, TRACER_V, light, NORMALS[0]);
+        }
+    }
+
+    private static void vertex(Vector3f position, float u, float v, int light, Vector3f normal) {
+        buffer.vertex(position.x(), position.y(), position.z(),
+                1.0f, 1.0f, 1.0f, 1.0f,
+                u / 16.0f, v / 16.0f,
+                OverlayTexture.NO_OVERLAY, light,
+                normal.x(), normal.y(), normal.z());
+    }
+}
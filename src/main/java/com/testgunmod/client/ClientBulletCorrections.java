@@ -0,0 +1,24 @@
+package com.testgunmod.client;
+
+import com.testgunmod.entity.BulletEntity;
+import com.testgunmod.network.BulletCorrectionPacket;
+import net.minecraft.client.Minecraft;
+import net.minecraft.world.entity.Entity;
+
+public class ClientBulletCorrections {
+
+    private ClientBulletCorrections() {
+    }
+
+    public static void apply(BulletCorrectionPacket packet) {
+        Minecraft minecraft = Minecraft.getInstance();
+        if (minecraft.level == null) {
+            return;
+        }
+
+        Entity entity = minecraft.level.getEntity(packet.entityId());
+        if (entity instanceof BulletEntity bullet) {
+            bullet.applyCorrection(packet.position(), packet.velocity(), packet.age());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.testgunmod.client;
+
+import com.testgunmod.entity.BulletEntity;
+import com.testgunmod.network.BulletBatchPacket;
+import com.testgunmod.projectile.Ballistics;
+import com.testgunmod.projectile.BulletStore;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import net.minecraft.client.Minecraft;
+
+/**
+ * Client mirror of the server's virtual bullets. Only ages advance here; the
+ * position at any age follows from the spawn state in each
+ * {@link BulletBatchPacket} through {@link Ballistics}, and the server only
+ * tells us when a bullet is retired early by a hit.
+ */
+public class ClientBulletManager {
+
+    private static final ClientBulletManager INSTANCE = new ClientBulletManager();
+
+    private final BulletStore store = new BulletStore();
+    private final Int2IntOpenHashMap indexById = new Int2IntOpenHashMap();
+
+    private ClientBulletManager() {
+        indexById.defaultReturnValue(-1);
+    }
+
+    public static ClientBulletManager get() {
+        return INSTANCE;
+    }
+
+    public BulletStore store() {
+        return store;
+    }
+
+    public void handleBatch(BulletBatchPacket packet) {
+        Minecraft minecraft = Minecraft.getInstance();
+        if (minecraft.level == null) {
+            return;
+        }
+
+        long latency = Math.max(0L, minecraft.level.getGameTime() - packet.gameTime());
+        store.ensureCapacity(store.size() + packet.spawnCount());
+
+        for (int n = 0; n < packet.spawnCount(); n++) {
+            int i = store.add(packet.id(n), packet.x(n), packet.y(n), packet.z(n),
+                    packet.vx(n), packet.vy(n), packet.vz(n),
+                    0.0f, -1, packet.seed(n));
+            indexById.put(packet.id(n), i);
+            if (packet.lifetime(n) > 0) {
+                store.setExpiry(i, packet.lifetime(n));
+            }
+
+            long age = packet.age(n) + latency;
+            if (age > BulletEntity.MAX_LIFETIME_TICKS || age >= store.expiry(i)) {
+                remove(i);
+            } else {
+                store.setAge(i, (int) age);
+            }
+        }
+
+        // Despawns come last: a bullet can be spawned and retired within the same server tick.
+        for (int id : packet.despawnIds()) {
+            remove(indexById.get(id));
+        }
+    }
+
+    public void tick() {
+        for (int i = store.size() - 1; i >= 0; i--) {
+            int age = store.age(i) + 1;
+            // Tracers of resolved shots end at their impact by themselves.
+            if (age > BulletEntity.MAX_LIFETIME_TICKS || age >= store.expiry(i)) {
+                remove(i);
+            } else {
+                store.setAge(i, age);
+            }
+        }
+    }
+
+    public void clear() {
+        store.clear();
+        indexById.clear();
+    }
+
+    private void remove(int i) {
+        if (i < 0) {
+            return;
+        }
+        indexById.remove(store.id(i));
+        store.remove(i);
+        if (i < store.size()) {
+            indexById.put(store.id(i), i);
+        }
+    }
+}
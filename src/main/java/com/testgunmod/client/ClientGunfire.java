@@ -0,0 +1,152 @@
+package com.testgunmod.client;
+
+import com.testgunmod.Config;
+import com.testgunmod.network.FireEventPacket;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.multiplayer.ClientLevel;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.core.particles.ParticleTypes;
+import net.minecraft.sounds.SoundEvents;
+import net.minecraft.sounds.SoundSource;
+import net.minecraft.world.entity.player.Player;
+
+/**
+ * Client side of {@link FireEventPacket}. Keeps a smoothed fire rate per
+ * 16-block area. Sporadic fire plays the usual shot sound; sustained fire
+ * voices only the loudest few areas, each with one looping
+ * {@link GunfireSound} whose volume follows the rate, instead of playing a
+ * sound per shot. Muzzle smoke is capped per area in the same way.
+ */
+public class ClientGunfire {
+
+    private static final ClientGunfire INSTANCE = new ClientGunfire();
+
+    // Rates are in shots per tick, averaged over roughly the last second.
+    private static final float DECAY = 0.85f;
+    private static final float FORGET_RATE = 0.01f;
+    // Areas firing slower than this play each shot; faster ones get a loop.
+    private static final float LOOP_RATE = 0.25f;
+    private static final float SHOT_VOLUME = 0.5f;
+    private static final float SHOT_PITCH = 1.5f;
+    private static final float BASE_VOLUME = 0.5f;
+    private static final float MAX_VOLUME = 2.0f;
+    private static final int MAX_SMOKE_PER_AREA = 2;
+
+    private final Long2ObjectOpenHashMap<Area> areas = new Long2ObjectOpenHashMap<>();
+    private final ObjectArrayList<Area> ranked = new ObjectArrayList<>();
+    // Playing voices, including ones still fading out after their area went quiet.
+    private final ObjectArrayList<GunfireSound> voices = new ObjectArrayList<>();
+
+    private ClientGunfire() {
+    }
+
+    public static ClientGunfire get() {
+        return INSTANCE;
+    }
+
+    public void handle(FireEventPacket packet) {
+        ClientLevel level = Minecraft.getInstance().level;
+        if (level == null) {
+            return;
+        }
+
+        for (int i = 0; i < packet.size(); i++) {
+            long pos = packet.position(i);
+            Area area = areas.computeIfAbsent(SectionPos.blockToSection(pos), key -> new Area());
+            area.pos = pos;
+            area.rate += packet.shots(i) * (1.0f - DECAY);
+
+            double x = BlockPos.getX(pos) + 0.5;
+            double y = BlockPos.getY(pos) + 0.5;
+            double z = BlockPos.getZ(pos) + 0.5;
+            if (area.voice == null && area.rate < LOOP_RATE) {
+                level.playLocalSound(x, y, z, SoundEvents.GENERIC_EXPLODE, SoundSource.PLAYERS,
+                        SHOT_VOLUME, SHOT_PITCH, false);
+            }
+            for (int n = Math.min(packet.shots(i), MAX_SMOKE_PER_AREA); n > 0; n--) {
+                level.addParticle(ParticleTypes.SMOKE,
+                        x + (level.random.nextDouble() - 0.5) * 0.5,
+                        y + (level.random.nextDouble() - 0.5) * 0.5,
+                        z + (level.random.nextDouble() - 0.5) * 0.5,
+                        0.0, 0.02, 0.0);
+            }
+        }
+    }
+
+    public void tick() {
+        Minecraft minecraft = Minecraft.getInstance();
+        Player player = minecraft.player;
+        if (player == null) {
+            return;
+        }
+
+        voices.removeIf(GunfireSound::isStopped);
+
+        ranked.clear();
+        ObjectIterator<Long2ObjectMap.Entry<Area>> iterator = areas.long2ObjectEntrySet().fastIterator();
+        while (iterator.hasNext()) {
+            Area area = iterator.next().getValue();
+            area.rate *= DECAY;
+            if (area.rate < FORGET_RATE) {
+                if (area.voice != null) {
+                    area.voice.fadeOut();
+                }
+                iterator.remove();
+                continue;
+            }
+            double distanceSq = player.distanceToSqr(BlockPos.getX(area.pos) + 0.5,
+                    BlockPos.getY(area.pos) + 0.5, BlockPos.getZ(area.pos) + 0.5);
+            area.loudness = volume(area.rate) / (float) (1.0 + distanceSq / 256.0);
+            ranked.add(area);
+        }
+        ranked.sort((a, b) -> Float.compare(b.loudness, a.loudness));
+
+        int limit = Config.maxGunfireVoices;
+        for (int n = 0; n < ranked.size(); n++) {
+            Area area = ranked.get(n);
+            if (n >= limit || area.rate < LOOP_RATE) {
+                if (area.voice != null) {
+                    area.voice.fadeOut();
+                    area.voice = null;
+                }
+                continue;
+            }
+
+            float volume = volume(area.rate);
+            if (area.voice != null && !area.voice.isStopped()) {
+                area.voice.setTargetVolume(volume);
+            } else if (voices.size() < limit) {
+                area.voice = new GunfireSound(BlockPos.of(area.pos), volume, player.getRandom());
+                minecraft.getSoundManager().play(area.voice);
+                voices.add(area.voice);
+            }
+        }
+    }
+
+    public void clear() {
+        for (GunfireSound voice : voices) {
+            Minecraft.getInstance().getSoundManager().stop(voice);
+        }
+        voices.clear();
+        areas.clear();
+        ranked.clear();
+    }
+
+    // Louder with more fire, but by the square root so a battle does not drown everything out.
+    private static float volume(float rate) {
+        return Math.min(MAX_VOLUME, BASE_VOLUME * (float) Math.sqrt(rate * 20.0f));
+    }
+
+    private static final class Area {
+
+        private long pos;
+        private float rate;
+        private float loudness;
+        private GunfireSound voice;
+    }
+}
@@ -0,0 +1,52 @@
+package com.testgunmod.client;
+
+import net.minecraft.client.resources.sounds.AbstractTickableSoundInstance;
+import net.minecraft.core.BlockPos;
+import net.minecraft.sounds.SoundEvents;
+import net.minecraft.sounds.SoundSource;
+import net.minecraft.util.RandomSource;
+
+/**
+ * One looping gunfire voice for an area. Its volume follows the area's fire
+ * rate smoothly and it stops by itself once faded out.
+ */
+public class GunfireSound extends AbstractTickableSoundInstance {
+
+    private static final float FADE = 0.3f;
+    private static final float SILENT = 0.02f;
+
+    private float targetVolume;
+
+    GunfireSound(BlockPos pos, float volume, RandomSource random) {
+        super(SoundEvents.GENERIC_EXPLODE, SoundSource.PLAYERS, random);
+        this.looping = true;
+        this.delay = 0;
+        this.pitch = 1.5f;
+        // Sounds that start silent are never played, so start at the target.
+        this.volume = volume;
+        this.targetVolume = volume;
+        moveTo(pos);
+    }
+
+    private void moveTo(BlockPos pos) {
+        this.x = pos.getX() + 0.5;
+        this.y = pos.getY() + 0.5;
+        this.z = pos.getZ() + 0.5;
+    }
+
+    void setTargetVolume(float volume) {
+        this.targetVolume = volume;
+    }
+
+    void fadeOut() {
+        this.targetVolume = 0.0f;
+    }
+
+    @Override
+    public void tick() {
+        this.volume += (targetVolume - this.volume) * FADE;
+        if (targetVolume == 0.0f && this.volume < SILENT) {
+            this.stop();
+        }
+    }
+}
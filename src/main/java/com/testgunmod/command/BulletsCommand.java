@@ -0,0 +1,120 @@
+package com.testgunmod.command;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.context.CommandContext;
+import com.testgunmod.projectile.BulletBudget;
+import com.testgunmod.projectile.BulletManager;
+import com.testgunmod.projectile.BulletMetrics;
+import com.testgunmod.projectile.BulletMetricsReport;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * {@code /bullets} profiling command for the level the source is in:
+ * <ul>
+ *     <li>{@code /bullets} live counts, spawn rate, despawn causes and phase timings</li>
+ *     <li>{@code /bullets chunks [count]} chunks with the most live bullets</li>
+ *     <li>{@code /bullets turrets [count]} turrets that fired the most since the last reset</li>
+ *     <li>{@code /bullets export} append a row to the metrics CSV now</li>
+ *     <li>{@code /bullets reset} clear the counters</li>
+ * </ul>
+ */
+public class BulletsCommand {
+
+    private static final int DEFAULT_LIMIT = 10;
+
+    private BulletsCommand() {
+    }
+
+    public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
+        dispatcher.register(Commands.literal("bullets")
+                .requires(source -> source.hasPermission(2))
+                .executes(BulletsCommand::summary)
+                .then(Commands.literal("chunks")
+                        .executes(context -> chunks(context, DEFAULT_LIMIT))
+                        .then(Commands.argument("count", IntegerArgumentType.integer(1, 100))
+                                .executes(context -> chunks(context, IntegerArgumentType.getInteger(context, "count")))))
+                .then(Commands.literal("turrets")
+                        .executes(context -> turrets(context, DEFAULT_LIMIT))
+                        .then(Commands.argument("count", IntegerArgumentType.integer(1, 100))
+                                .executes(context -> turrets(context, IntegerArgumentType.getInteger(context, "count")))))
+                .then(Commands.literal("export").executes(BulletsCommand::export))
+                .then(Commands.literal("reset").executes(BulletsCommand::reset)));
+    }
+
+    private static int summary(CommandContext<CommandSourceStack> context) {
+        ServerLevel level = context.getSource().getLevel();
+        BulletManager manager = BulletManager.get(level);
+        BulletMetrics metrics = manager.metrics();
+
+        send(context, "Bullets in %s over the last %.0f s", level.dimension().location(), metrics.secondsSinceReset());
+        send(context, "  alive: %d virtual, %d entities, %d frozen in chunks that are not ticking",
+                manager.store().size(), BulletMetricsReport.entityBullets(level), manager.regions().size());
+        send(context, "  spawned: %d (%.1f/s), %d dropped by the budget", metrics.spawned(), metrics.spawnsPerSecond(),
+                metrics.rejected());
+        send(context, "  budget: pressure %d/%d, lifetime %d ticks, burst %d, %d live counted",
+                manager.budget().pressure(), BulletBudget.MAX_PRESSURE, manager.budget().lifetime(),
+                manager.budget().burstSize(), manager.budget().live());
+        send(context, "  despawned: %d lifetime, %d block hit, %d entity hit, %d out of world, %d unloaded",
+                metrics.despawns(BulletMetrics.Despawn.LIFETIME),
+                metrics.despawns(BulletMetrics.Despawn.BLOCK_HIT),
+                metrics.despawns(BulletMetrics.Despawn.ENTITY_HIT),
+                metrics.despawns(BulletMetrics.Despawn.OUT_OF_WORLD),
+                metrics.despawns(BulletMetrics.Despawn.UNLOADED));
+        for (BulletMetrics.Phase phase : BulletMetrics.Phase.values()) {
+            send(context, "  %s: %.0f ns/step, %.3f ms/tick", phase.name().toLowerCase(Locale.ROOT),
+                    metrics.nanosPerStep(phase), metrics.millisPerTick(phase));
+        }
+        return manager.store().size();
+    }
+
+    private static int chunks(CommandContext<CommandSourceStack> context, int limit) {
+        ServerLevel level = context.getSource().getLevel();
+        List<Long2IntMap.Entry> top = BulletMetricsReport.topChunks(level, BulletManager.get(level), limit);
+        send(context, "Chunks with the most live bullets:");
+        for (Long2IntMap.Entry entry : top) {
+            ChunkPos pos = new ChunkPos(entry.getLongKey());
+            send(context, "  [%d, %d] (blocks %d, %d): %d", pos.x, pos.z,
+                    pos.getMinBlockX(), pos.getMinBlockZ(), entry.getIntValue());
+        }
+        return top.size();
+    }
+
+    private static int turrets(CommandContext<CommandSourceStack> context, int limit) {
+        BulletMetrics metrics = BulletManager.get(context.getSource().getLevel()).metrics();
+        List<Long2IntMap.Entry> top = metrics.topTurrets(limit);
+        send(context, "Turrets by shots over the last %.0f s:", metrics.secondsSinceReset());
+        for (Long2IntMap.Entry entry : top) {
+            BlockPos pos = BlockPos.of(entry.getLongKey());
+            send(context, "  %d %d %d: %d", pos.getX(), pos.getY(), pos.getZ(), entry.getIntValue());
+        }
+        return top.size();
+    }
+
+    private static int export(CommandContext<CommandSourceStack> context) {
+        ServerLevel level = context.getSource().getLevel();
+        BulletMetricsReport.appendCsv(level, BulletManager.get(level));
+        send(context, "Appended bullet metrics to %s", BulletMetricsReport.CSV_FILE);
+        return 1;
+    }
+
+    private static int reset(CommandContext<CommandSourceStack> context) {
+        BulletManager.get(context.getSource().getLevel()).metrics().reset();
+        send(context, "Bullet metrics reset");
+        return 1;
+    }
+
+    private static void send(CommandContext<CommandSourceStack> context, String format, Object... args) {
+        Component message = Component.literal(String.format(Locale.ROOT, format, args));
+        context.getSource().sendSuccess(() -> message, false);
+    }
+}
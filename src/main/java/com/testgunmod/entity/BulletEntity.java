@@ -1,141 +1,444 @@
 package com.testgunmod.entity;
 
+import com.testgunmod.Config;
+import com.testgunmod.network.BulletCorrectionPacket;
+import com.testgunmod.network.ModNetwork;
+import com.testgunmod.projectile.Ballistics;
+import com.testgunmod.projectile.BulletInterest;
+import com.testgunmod.projectile.BulletManager;
+import com.testgunmod.projectile.BulletMetrics;
+import com.testgunmod.projectile.BulletRegionStore;
+import com.testgunmod.projectile.Intersections;
+import com.testgunmod.projectile.TrajectorySweep;
+import com.testgunmod.projectile.TrajectoryTable;
+import it.unimi.dsi.fastutil.ints.IntArraySet;
+import it.unimi.dsi.fastutil.ints.IntIterator;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.protocol.Packet;
 import net.minecraft.network.protocol.game.ClientGamePacketListener;
-import net.minecraft.network.protocol.game.ClientboundAddEntityPacket;
 import net.minecraft.network.syncher.EntityDataAccessor;
 import net.minecraft.network.syncher.EntityDataSerializers;
 import net.minecraft.network.syncher.SynchedEntityData;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.util.Mth;
-import net.minecraft.world.damagesource.DamageSource;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.EntityType;
-import net.minecraft.world.level.ClipContext;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.phys.*;
+import net.minecraftforge.entity.IEntityAdditionalSpawnData;
+import net.minecraftforge.network.NetworkHooks;
+import net.minecraftforge.network.PacketDistributor;
 
-import java.util.List;
+import javax.annotation.Nullable;
 
-public class BulletEntity extends Entity {
+public class BulletEntity extends Entity implements IEntityAdditionalSpawnData {
 
     private static final EntityDataAccessor<Float> DATA_DAMAGE =
             SynchedEntityData.defineId(BulletEntity.class, EntityDataSerializers.FLOAT);
 
-    private static final EntityDataAccessor<Integer> DATA_AGE =
-            SynchedEntityData.defineId(BulletEntity.class, EntityDataSerializers.INT);
-
     private int ticksAlive = 0;
-    private AABB cachedSearchBox;
-
-    private boolean firstClientTick = false;
-
-    private static final double AIR_DRAG = 0.99;
-    private static final double GRAVITY = 0.015;
-
-    private static final double COLLISION_MARGIN = 0.10;
 
-    private static final int MAX_LIFETIME_TICKS = 1200;
+    // Trajectory anchor: the bullet is at Ballistics(origin, launchVelocity, ticksAlive - anchorAge).
+    private double originX;
+    private double originY;
+    private double originZ;
+    private double launchVelocityX;
+    private double launchVelocityY;
+    private double launchVelocityZ;
+    private int anchorAge = 0;
+    // Ticks flown since collisions were last swept, and how many ticks apart sweeps are.
+    private int lag;
+    private int sweepInterval = 1;
+    // Precomputed orientation for the anchor velocity, when it is a shared one such as a turret's.
+    @Nullable
+    private TrajectoryTable rotations;
+
+    // Ids of players tracking this bullet, kept so an established pairing is not charged again.
+    @Nullable
+    private IntArraySet viewers;
+
+    // Spawn position counted against the level's BulletBudget, released on removal.
+    private boolean budgeted;
+    private double budgetX;
+    private double budgetZ;
+
+    public static final double COLLISION_MARGIN = 0.10;
+
+    public static final int MAX_LIFETIME_TICKS = 1200;
 
     public BulletEntity(EntityType<?> type, Level level) {
         super(type, level);
-        this.noCulling = true;
     }
 
     public BulletEntity(EntityType<?> type, Level level, Vec3 position, Vec3 velocity, float damage) {
         this(type, level);
         this.setPos(position.x, position.y, position.z);
         this.setDeltaMovement(velocity);
+        this.anchor(position.x, position.y, position.z, velocity.x, velocity.y, velocity.z, 0);
         this.updateRotation();
         this.entityData.set(DATA_DAMAGE, damage);
-        this.entityData.set(DATA_AGE, 0);
         this.setNoGravity(true);
     }
 
+    /**
+     * Rebuilds a bullet frozen by the {@link BulletRegionStore} at the given step of its
+     * trajectory, {@code age} ticks after it was fired and {@code lag} ticks after its last sweep.
+     */
+    public static BulletEntity resume(EntityType<?> type, Level level, double originX, double originY, double originZ,
+                                      double velocityX, double velocityY, double velocityZ,
+                                      int step, int age, int lag, float damage) {
+        BulletEntity bullet = new BulletEntity(type, level);
+        bullet.ticksAlive = age;
+        bullet.lag = lag;
+        bullet.anchor(originX, originY, originZ, velocityX, velocityY, velocityZ, age - step);
+        bullet.setPos(
+                Ballistics.horizontal(originX, velocityX, step),
+                Ballistics.vertical(originY, velocityY, step),
+                Ballistics.horizontal(originZ, velocityZ, step)
+        );
+        bullet.setDeltaMovement(
+                Ballistics.horizontalVelocity(velocityX, step),
+                Ballistics.verticalVelocity(velocityY, step),
+                Ballistics.horizontalVelocity(velocityZ, step)
+        );
+        bullet.updateRotation();
+        bullet.entityData.set(DATA_DAMAGE, damage);
+        bullet.setNoGravity(true);
+        return bullet;
+    }
+
     @Override
     protected void defineSynchedData() {
         this.entityData.define(DATA_DAMAGE, 10.0f);
-        this.entityData.define(DATA_AGE, 0);
     }
 
     @Override
     public void tick() {
         super.tick();
 
-        if (this.level().isClientSide && firstClientTick) {
-            firstClientTick = false;
-            ticksAlive++;
-            this.entityData.set(DATA_AGE, ticksAlive);
-            return;
-        }
-
-        if (++ticksAlive > MAX_LIFETIME_TICKS) {
-            this.discard();
+        ++ticksAlive;
+        if (this.level().isClientSide ? ticksAlive > MAX_LIFETIME_TICKS : expired()) {
+            if (!this.isRemoved()) {
+                this.discard();
+            }
             return;
         }
 
         if (!this.level().isClientSide) {
-            this.entityData.set(DATA_AGE, ticksAlive);
+            checkDrift();
         }
 
-        Vec3 motion = this.getDeltaMovement();
-        Vec3 currentPos = this.position();
-
-        Vec3 nextPos = currentPos.add(motion);
+        int step = ticksAlive - anchorAge;
+        double nextX = Ballistics.horizontal(originX, launchVelocityX, step);
+        double nextY = Ballistics.vertical(originY, launchVelocityY, step);
+        double nextZ = Ballistics.horizontal(originZ, launchVelocityZ, step);
 
         if (!this.level().isClientSide) {
-            BlockHitResult blockHit = this.level().clip(new ClipContext(
-                    currentPos, nextPos,
-                    ClipContext.Block.COLLIDER,
-                    ClipContext.Fluid.NONE,
-                    this
-            ));
-
-            if (blockHit.getType() != HitResult.Type.MISS) {
-                this.discard();
+            BulletManager manager = BulletManager.get((ServerLevel) this.level());
+            BulletMetrics metrics = manager.metrics();
+
+            if (this.getY() < this.level().getMinBuildHeight()) {
+                sweepDeferred(manager);
+                if (!this.isRemoved()) {
+                    metrics.recordDespawn(BulletMetrics.Despawn.OUT_OF_WORLD);
+                    this.discard();
+                }
+                return;
+            }
+            if (!manager.isTicking(nextX, nextZ)) {
+                sweepDeferred(manager);
+                if (!this.isRemoved()) {
+                    metrics.recordDespawn(BulletMetrics.Despawn.UNLOADED);
+                    this.discard();
+                }
                 return;
             }
 
-            if (cachedSearchBox == null) {
-                cachedSearchBox = new AABB(currentPos, nextPos).inflate(COLLISION_MARGIN);
+            if (BulletInterest.due(this.level().getGameTime(), this.getId(), sweepInterval)) {
+                metrics.recordStep();
+                int from = step - 1 - lag;
+                if (!manager.coasting(Ballistics.vertical(originY, launchVelocityY, from), nextY)) {
+                    sweep(manager, from, lag + 1);
+                    if (this.isRemoved()) {
+                        return;
+                    }
+                }
+                lag = 0;
+                sweepInterval = manager.interest().updateInterval(nextX, nextY, nextZ);
             } else {
-                double minX = Math.min(currentPos.x, nextPos.x) - COLLISION_MARGIN;
-                double minY = Math.min(currentPos.y, nextPos.y) - COLLISION_MARGIN;
-                double minZ = Math.min(currentPos.z, nextPos.z) - COLLISION_MARGIN;
-                double maxX = Math.max(currentPos.x, nextPos.x) + COLLISION_MARGIN;
-                double maxY = Math.max(currentPos.y, nextPos.y) + COLLISION_MARGIN;
-                double maxZ = Math.max(currentPos.z, nextPos.z) + COLLISION_MARGIN;
-                cachedSearchBox = new AABB(minX, minY, minZ, maxX, maxY, maxZ);
+                lag++;
             }
+        }
 
-            List<Entity> entities = this.level().getEntities(this, cachedSearchBox,
-                    e -> e.isAlive() && e.isPickable());
+        this.setPos(nextX, nextY, nextZ);
+        this.setDeltaMovement(
+                Ballistics.horizontalVelocity(launchVelocityX, step),
+                Ballistics.verticalVelocity(launchVelocityY, step),
+                Ballistics.horizontalVelocity(launchVelocityZ, step)
+        );
 
-            if (!entities.isEmpty()) {
-                Entity target = entities.get(0);
+        this.updateRotation();
+    }
 
-                if (cachedSearchBox.intersects(target.getBoundingBox())) {
-                    float damage = this.entityData.get(DATA_DAMAGE);
-                    target.hurt(this.damageSources().mobProjectile(this, null), damage);
-                    this.discard();
-                    return;
-                }
-            }
+    // Collides the path from tick from over span ticks and applies the first hit, discarding the bullet.
+    private void sweep(BulletManager manager, int from, int span) {
+        BulletMetrics metrics = manager.metrics();
+        boolean timed = BulletMetrics.timed(this.getId());
+        long start = timed ? System.nanoTime() : 0L;
+
+        TrajectorySweep sweep = manager.sweep();
+        sweep.setTimed(timed);
+        sweep.run(manager.blocks(), manager.broadPhase(), false, originX, originY, originZ,
+                launchVelocityX, launchVelocityY, launchVelocityZ, from, span, this, -1);
+
+        if (timed) {
+            long total = System.nanoTime() - start;
+            metrics.recordTiming(total - sweep.clipNanos() - sweep.entityNanos(), sweep.clipNanos(), sweep.entityNanos());
+        }
+
+        Entity target = sweep.target();
+        if (target != null) {
+            manager.hits().add(target, this.entityData.get(DATA_DAMAGE), this, null);
+            metrics.recordDespawn(BulletMetrics.Despawn.ENTITY_HIT);
+            sendCorrection(trajectoryPoint(from, sweep.targetFraction()));
+            this.discard();
+            return;
         }
 
-        this.setPos(nextPos.x, nextPos.y, nextPos.z);
+        if (sweep.blockFraction() != Intersections.MISS) {
+            metrics.recordDespawn(BulletMetrics.Despawn.BLOCK_HIT);
+            sendCorrection(trajectoryPoint(from, sweep.blockFraction()));
+            this.discard();
+        }
+    }
 
-        Vec3 newMotion = new Vec3(
-                motion.x * AIR_DRAG,
-                motion.y - GRAVITY,
-                motion.z * AIR_DRAG
+    private Vec3 trajectoryPoint(int ticks, double fraction) {
+        return new Vec3(
+                Ballistics.horizontal(originX, launchVelocityX, ticks, fraction),
+                Ballistics.vertical(originY, launchVelocityY, ticks, fraction),
+                Ballistics.horizontal(originZ, launchVelocityZ, ticks, fraction)
         );
-        this.setDeltaMovement(newMotion);
+    }
+
+    private boolean expired() {
+        BulletManager manager = BulletManager.get((ServerLevel) this.level());
+        if (ticksAlive > manager.budget().lifetime()) {
+            sweepDeferred(manager);
+            if (!this.isRemoved()) {
+                manager.metrics().recordDespawn(BulletMetrics.Despawn.LIFETIME);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // Sweeps the ticks deferred since the last sweep before the bullet goes without another
+    // one, so no part of its path goes unchecked. A hit discards it.
+    private void sweepDeferred(BulletManager manager) {
+        if (lag <= 0) {
+            return;
+        }
+        int step = ticksAlive - 1 - anchorAge;
+        if (!manager.coasting(Ballistics.vertical(originY, launchVelocityY, step - lag),
+                Ballistics.vertical(originY, launchVelocityY, step))) {
+            sweep(manager, step - lag, lag);
+        }
+        lag = 0;
+    }
+
+    public void markBudgeted() {
+        this.budgeted = true;
+        this.budgetX = this.getX();
+        this.budgetZ = this.getZ();
+    }
+
+    @Override
+    public void onRemovedFromWorld() {
+        super.onRemovedFromWorld();
+        if (!(this.level() instanceof ServerLevel serverLevel)) {
+            return;
+        }
+
+        // Not saved with the chunk; the region store keeps it in packed form instead.
+        if (this.getRemovalReason() == RemovalReason.UNLOADED_TO_CHUNK) {
+            BulletRegionStore.get(serverLevel).freeze(originX, originY, originZ,
+                    launchVelocityX, launchVelocityY, launchVelocityZ, step(), ticksAlive, lag, damage(), 0);
+        }
+
+        if (budgeted) {
+            BulletManager manager = BulletManager.getIfPresent(serverLevel);
+            if (manager != null) {
+                manager.budget().release(budgetX, budgetZ);
+            }
+            budgeted = false;
+        }
+    }
 
+    public double originX() {
+        return originX;
+    }
+
+    public double originY() {
+        return originY;
+    }
+
+    public double originZ() {
+        return originZ;
+    }
+
+    public double launchVelocityX() {
+        return launchVelocityX;
+    }
+
+    public double launchVelocityY() {
+        return launchVelocityY;
+    }
+
+    public double launchVelocityZ() {
+        return launchVelocityZ;
+    }
+
+    /**
+     * Ticks along the anchored trajectory to the current position.
+     */
+    public int step() {
+        return ticksAlive - anchorAge;
+    }
+
+    public int age() {
+        return ticksAlive;
+    }
+
+    /**
+     * Ticks flown since collisions were last swept.
+     */
+    public int lag() {
+        return lag;
+    }
+
+    public float damage() {
+        return this.entityData.get(DATA_DAMAGE);
+    }
+
+    // Something other than our own trajectory moved the bullet (a teleport, another mod);
+    // re-anchor on the actual state and tell tracking clients.
+    private void checkDrift() {
+        int step = ticksAlive - 1 - anchorAge;
+        double dx = this.getX() - Ballistics.horizontal(originX, launchVelocityX, step);
+        double dy = this.getY() - Ballistics.vertical(originY, launchVelocityY, step);
+        double dz = this.getZ() - Ballistics.horizontal(originZ, launchVelocityZ, step);
+        double tolerance = Config.correctionThreshold;
+
+        if (dx * dx + dy * dy + dz * dz > tolerance * tolerance) {
+            Vec3 motion = this.getDeltaMovement();
+            anchor(this.getX(), this.getY(), this.getZ(), motion.x, motion.y, motion.z, ticksAlive - 1);
+            // The path before the jump no longer leads here, so start sweeping afresh.
+            lag = 0;
+            sendDriftCorrection();
+        }
+    }
+
+    private void anchor(double x, double y, double z, double vx, double vy, double vz, int age) {
+        this.originX = x;
+        this.originY = y;
+        this.originZ = z;
+        this.launchVelocityX = vx;
+        this.launchVelocityY = vy;
+        this.launchVelocityZ = vz;
+        this.anchorAge = age;
+        this.rotations = TrajectoryTable.find(vx, vy, vz);
+    }
+
+    private void sendCorrection(Vec3 position) {
+        ModNetwork.CHANNEL.send(PacketDistributor.TRACKING_ENTITY.with(() -> this),
+                new BulletCorrectionPacket(this.getId(), position, this.getDeltaMovement(), ticksAlive - 1));
+    }
+
+    // Only players the bullet is relevant to follow drift; the rest only see spawn and impact.
+    private void sendDriftCorrection() {
+        if (viewers == null || viewers.isEmpty()) {
+            return;
+        }
+        BulletInterest interest = BulletManager.get((ServerLevel) this.level()).interest();
+        BulletCorrectionPacket packet = new BulletCorrectionPacket(this.getId(), this.position(),
+                this.getDeltaMovement(), ticksAlive - 1);
+        IntIterator iterator = viewers.iterator();
+        while (iterator.hasNext()) {
+            if (this.level().getEntity(iterator.nextInt()) instanceof ServerPlayer player
+                    && relevance(interest, player) == BulletInterest.FULL) {
+                ModNetwork.CHANNEL.send(PacketDistributor.PLAYER.with(() -> player), packet);
+            }
+        }
+    }
+
+    private byte relevance(BulletInterest interest, ServerPlayer player) {
+        int p = interest.indexOf(player);
+        if (p < 0) {
+            return BulletInterest.FULL;
+        }
+        Vec3 motion = this.getDeltaMovement();
+        return interest.classify(p, this.getX(), this.getY(), this.getZ(), motion.x, motion.y, motion.z);
+    }
+
+    /**
+     * Pairs the bullet only with players it is relevant to, within their per-tick budget.
+     * Re-checked whenever the bullet changes section, so bullets heading away drop off.
+     */
+    @Override
+    public boolean broadcastToPlayer(ServerPlayer player) {
+        BulletInterest interest = BulletManager.get((ServerLevel) this.level()).interest();
+        byte tier = relevance(interest, player);
+        if (tier == BulletInterest.IGNORED) {
+            return false;
+        }
+        if (viewers != null && viewers.contains(player.getId())) {
+            return true;
+        }
+        int p = interest.indexOf(player);
+        return p < 0 || interest.charge(p, tier);
+    }
+
+    @Override
+    public void startSeenByPlayer(ServerPlayer player) {
+        super.startSeenByPlayer(player);
+        if (viewers == null) {
+            viewers = new IntArraySet(2);
+        }
+        viewers.add(player.getId());
+    }
+
+    @Override
+    public void stopSeenByPlayer(ServerPlayer player) {
+        super.stopSeenByPlayer(player);
+        if (viewers != null) {
+            viewers.remove(player.getId());
+        }
+    }
+
+    public void applyCorrection(Vec3 position, Vec3 velocity, int age) {
+        this.ticksAlive = age;
+        this.anchor(position.x, position.y, position.z, velocity.x, velocity.y, velocity.z, age);
+        this.setPos(position.x, position.y, position.z);
+        this.setDeltaMovement(velocity);
         this.updateRotation();
     }
 
     private void updateRotation() {
+        int step = ticksAlive - anchorAge;
+        if (rotations != null && step >= 0 && step < rotations.length()) {
+            float pitch = rotations.pitch(step);
+            if (!Float.isNaN(pitch)) {
+                this.setYRot(rotations.yaw(step));
+                this.setXRot(pitch);
+
+                this.yRotO = this.getYRot();
+                this.xRotO = this.getXRot();
+            }
+            return;
+        }
+
         Vec3 motion = this.getDeltaMovement();
         double horizontalDist = motion.horizontalDistance();
 
@@ -153,28 +456,43 @@ public class BulletEntity extends Entity {
     }
 
     @Override
-    public boolean shouldRenderAtSqrDistance(double distance) {
-        return true;
+    public Packet<ClientGamePacketListener> getAddEntityPacket() {
+        return NetworkHooks.getEntitySpawningPacket(this);
     }
 
+    // The vanilla spawn packet quantizes velocity to 1/8000 and clamps it to 3.9 blocks/tick,
+    // which would put the client on a different trajectory. Send the exact anchor instead.
     @Override
-    public Packet<ClientGamePacketListener> getAddEntityPacket() {
-        return new ClientboundAddEntityPacket(this);
+    public void writeSpawnData(FriendlyByteBuf buffer) {
+        buffer.writeDouble(originX);
+        buffer.writeDouble(originY);
+        buffer.writeDouble(originZ);
+        buffer.writeDouble(launchVelocityX);
+        buffer.writeDouble(launchVelocityY);
+        buffer.writeDouble(launchVelocityZ);
+        buffer.writeVarInt(anchorAge);
+        buffer.writeVarInt(ticksAlive);
     }
 
     @Override
-    public void recreateFromPacket(ClientboundAddEntityPacket packet) {
-        super.recreateFromPacket(packet);
-
-        double vx = packet.getXa();
-        double vy = packet.getYa();
-        double vz = packet.getZa();
-        this.setDeltaMovement(vx, vy, vz);
+    public void readSpawnData(FriendlyByteBuf additionalData) {
+        double x = additionalData.readDouble();
+        double y = additionalData.readDouble();
+        double z = additionalData.readDouble();
+        double vx = additionalData.readDouble();
+        double vy = additionalData.readDouble();
+        double vz = additionalData.readDouble();
+        int age = additionalData.readVarInt();
+        this.anchor(x, y, z, vx, vy, vz, age);
+        this.ticksAlive = additionalData.readVarInt();
+
+        int step = ticksAlive - anchorAge;
+        this.setDeltaMovement(
+                Ballistics.horizontalVelocity(launchVelocityX, step),
+                Ballistics.verticalVelocity(launchVelocityY, step),
+                Ballistics.horizontalVelocity(launchVelocityZ, step)
+        );
         this.updateRotation();
-
-        if (this.level().isClientSide) {
-            this.firstClientTick = true;
-        }
     }
 
     @Override
@@ -208,6 +526,8 @@ public class BulletEntity extends Entity {
         if (tag.contains("Damage")) {
             this.entityData.set(DATA_DAMAGE, tag.getFloat("Damage"));
         }
+        Vec3 motion = this.getDeltaMovement();
+        this.anchor(this.getX(), this.getY(), this.getZ(), motion.x, motion.y, motion.z, ticksAlive);
     }
 
     @Override
@@ -215,4 +535,4 @@ public class BulletEntity extends Entity {
         tag.putInt("Age", this.ticksAlive);
         tag.putFloat("Damage", this.entityData.get(DATA_DAMAGE));
     }
-}
\ No newline at end of file
+}
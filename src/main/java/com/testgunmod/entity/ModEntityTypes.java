@@ -19,8 +19,9 @@ public class ModEntityTypes {
                             MobCategory.MISC
                     )
                     .sized(0.1f, 0.1f)
-                    .updateInterval(1)
-                    .setShouldReceiveVelocityUpdates(true)
+                    // Clients predict the trajectory themselves; BulletCorrectionPacket covers hits and drift.
+                    .updateInterval(100)
+                    .setShouldReceiveVelocityUpdates(false)
                     .fireImmune()
                     .build("bullet"));
 
@@ -0,0 +1,232 @@
+package com.testgunmod.gametest;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.mojang.logging.LogUtils;
+import com.testgunmod.Config;
+import com.testgunmod.TestGunMod;
+import com.testgunmod.block.GunTurretBlock;
+import com.testgunmod.block.ModBlocks;
+import com.testgunmod.entity.ModEntityTypes;
+import com.testgunmod.projectile.BulletManager;
+import com.testgunmod.projectile.BulletMetrics;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraftforge.gametest.GameTestHolder;
+import net.minecraftforge.gametest.PrefixGameTestTemplate;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Turret load test for the gameTestServer run. Places a wall of powered
+ * turrets firing at a line of targets, runs for a fixed number of ticks and
+ * writes tick-time, bullet and allocation figures to a JSON report in the
+ * server directory.
+ * <p>
+ * Sized with system properties: {@code testgunmod.stress.turrets},
+ * {@code testgunmod.stress.mobs}, {@code testgunmod.stress.ticks} and
+ * {@code testgunmod.stress.output}.
+ */
+@GameTestHolder(TestGunMod.MOD_ID)
+@PrefixGameTestTemplate(false)
+public class TurretStressTest {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    // Matches the size of data/testgunmod/structures/stress_arena.nbt.
+    private static final int ARENA_WIDTH = 48;
+    private static final int ARENA_HEIGHT = 24;
+    private static final int TARGET_DISTANCE = 32;
+
+    private static final int SAMPLE_INTERVAL = 20;
+
+    @GameTest(template = "stress_arena", timeoutTicks = 72000)
+    public static void turretStress(GameTestHelper helper) {
+        int turrets = Math.min(Integer.getInteger("testgunmod.stress.turrets", 300), ARENA_WIDTH * (ARENA_HEIGHT - 2));
+        int mobs = Math.min(Integer.getInteger("testgunmod.stress.mobs", 16), ARENA_WIDTH);
+        int ticks = Integer.getInteger("testgunmod.stress.ticks", 1200);
+        String output = System.getProperty("testgunmod.stress.output", "testgunmod-stress.json");
+
+        new Run(helper, turrets, mobs, ticks, output).start();
+    }
+
+    private static class Run {
+
+        private final GameTestHelper helper;
+        private final ServerLevel level;
+        private final MinecraftServer server;
+        private final BulletManager manager;
+        private final int turrets;
+        private final int ticks;
+        private final String output;
+
+        private final Mob[] targets;
+        private final long[] tickNanos;
+        private int sampledTicks;
+        private int peakAlive;
+        private long targetRespawns;
+
+        private long startSpawned;
+        private long startEntityHits;
+        private long startBlockHits;
+        private long startAllocated;
+        private long startNanos;
+
+        Run(GameTestHelper helper, int turrets, int mobs, int ticks, String output) {
+            this.helper = helper;
+            this.level = helper.getLevel();
+            this.server = level.getServer();
+            this.manager = BulletManager.get(level);
+            this.turrets = turrets;
+            this.ticks = ticks;
+            this.output = output;
+            this.targets = new Mob[mobs];
+            this.tickNanos = new long[ticks];
+        }
+
+        void start() {
+            for (int i = 0; i < turrets; i++) {
+                int x = i % ARENA_WIDTH;
+                int y = 1 + i / ARENA_WIDTH;
+                // Power first so the turret registers as powered when it is placed.
+                helper.setBlock(new BlockPos(x, y, 0), Blocks.REDSTONE_BLOCK);
+                helper.setBlock(new BlockPos(x, y, 1),
+                        ModBlocks.GUN_TURRET.get().defaultBlockState().setValue(GunTurretBlock.FACING, Direction.SOUTH));
+            }
+            for (int i = 0; i < targets.length; i++) {
+                targets[i] = spawnTarget(i);
+            }
+
+            startSpawned = manager.metrics().spawned();
+            startEntityHits = manager.metrics().despawns(BulletMetrics.Despawn.ENTITY_HIT);
+            startBlockHits = manager.metrics().despawns(BulletMetrics.Despawn.BLOCK_HIT);
+            startAllocated = allocatedBytes();
+            startNanos = System.nanoTime();
+
+            helper.onEachTick(this::sample);
+            helper.runAfterDelay(ticks, this::finish);
+        }
+
+        private Mob spawnTarget(int index) {
+            int x = (int) ((index + 0.5) * ARENA_WIDTH / targets.length);
+            return helper.spawnWithNoFreeWill(EntityType.HUSK, new BlockPos(x, 1, TARGET_DISTANCE));
+        }
+
+        private void sample() {
+            if (sampledTicks >= tickNanos.length) {
+                return;
+            }
+            // The previous tick has finished by the time this level ticks.
+            tickNanos[sampledTicks++] = server.tickTimes[(server.getTickCount() + 99) % 100];
+
+            for (int i = 0; i < targets.length; i++) {
+                if (!targets[i].isAlive()) {
+                    targets[i] = spawnTarget(i);
+                    targetRespawns++;
+                }
+            }
+
+            if (sampledTicks % SAMPLE_INTERVAL == 0) {
+                peakAlive = Math.max(peakAlive, aliveBullets());
+            }
+        }
+
+        private void finish() {
+            double seconds = (System.nanoTime() - startNanos) / 1.0e9;
+            long allocated = allocatedBytes() - startAllocated;
+            long spawned = manager.metrics().spawned() - startSpawned;
+
+            long[] sorted = Arrays.copyOf(tickNanos, sampledTicks);
+            Arrays.sort(sorted);
+
+            JsonObject report = new JsonObject();
+            report.addProperty("virtualProjectiles", Config.virtualProjectiles);
+            report.addProperty("parallelStepping", Config.parallelStepping);
+            report.addProperty("turrets", turrets);
+            report.addProperty("mobs", targets.length);
+            report.addProperty("ticks", sampledTicks);
+            report.addProperty("wallSeconds", seconds);
+
+            JsonObject mspt = new JsonObject();
+            mspt.addProperty("mean", mean(sorted) / 1.0e6);
+            mspt.addProperty("p50", percentile(sorted, 0.50) / 1.0e6);
+            mspt.addProperty("p90", percentile(sorted, 0.90) / 1.0e6);
+            mspt.addProperty("p99", percentile(sorted, 0.99) / 1.0e6);
+            mspt.addProperty("max", sorted.length > 0 ? sorted[sorted.length - 1] / 1.0e6 : 0.0);
+            report.add("mspt", mspt);
+
+            JsonObject bullets = new JsonObject();
+            bullets.addProperty("spawned", spawned);
+            bullets.addProperty("perSecond", sampledTicks > 0 ? spawned * 20.0 / sampledTicks : 0.0);
+            bullets.addProperty("aliveAtEnd", aliveBullets());
+            bullets.addProperty("peakAlive", peakAlive);
+            bullets.addProperty("entityHits", manager.metrics().despawns(BulletMetrics.Despawn.ENTITY_HIT) - startEntityHits);
+            bullets.addProperty("blockHits", manager.metrics().despawns(BulletMetrics.Despawn.BLOCK_HIT) - startBlockHits);
+            bullets.addProperty("targetRespawns", targetRespawns);
+            report.add("bullets", bullets);
+
+            // Server thread only; bullet worker threads are not included.
+            JsonObject allocation = new JsonObject();
+            allocation.addProperty("serverThreadBytes", allocated);
+            allocation.addProperty("bytesPerSecond", seconds > 0 ? allocated / seconds : 0.0);
+            allocation.addProperty("bytesPerTick", sampledTicks > 0 ? (double) allocated / sampledTicks : 0.0);
+            report.add("allocation", allocation);
+
+            Path path = server.getServerDirectory().toPath().resolve(output);
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                new GsonBuilder().setPrettyPrinting().create().toJson(report, writer);
+            } catch (IOException e) {
+                LOGGER.error("Failed to write stress report to {}", path, e);
+            }
+            LOGGER.info("Turret stress report written to {}", path);
+
+            helper.succeed();
+        }
+
+        private int aliveBullets() {
+            return manager.store().size()
+                    + level.getEntities(ModEntityTypes.BULLET.get(), bullet -> true).size();
+        }
+
+        private static long allocatedBytes() {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    && threads.isThreadAllocatedMemorySupported()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+            return 0L;
+        }
+
+        private static double mean(long[] values) {
+            if (values.length == 0) {
+                return 0.0;
+            }
+            double total = 0.0;
+            for (long value : values) {
+                total += value;
+            }
+            return total / values.length;
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0.0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+}
@@ -1,9 +1,8 @@
 package com.testgunmod.item;
 
-import com.testgunmod.entity.BulletEntity;
-import com.testgunmod.entity.ModEntityTypes;
-import net.minecraft.sounds.SoundEvents;
-import net.minecraft.sounds.SoundSource;
+import com.testgunmod.projectile.BulletManager;
+import com.testgunmod.projectile.BulletSpawner;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.InteractionHand;
 import net.minecraft.world.InteractionResultHolder;
 import net.minecraft.world.entity.player.Player;
@@ -22,26 +21,19 @@ public class GunItem extends Item {
     public InteractionResultHolder<ItemStack> use(Level level, Player player, InteractionHand hand) {
         ItemStack itemStack = player.getItemInHand(hand);
 
-        if (!level.isClientSide) {
+        if (level instanceof ServerLevel serverLevel) {
             Vec3 lookVec = player.getLookAngle();
 
-            Vec3 velocity = lookVec.scale(2.5);
+            BulletSpawner.spawn(serverLevel,
+                    player.getX() + lookVec.x,
+                    player.getEyeY() + lookVec.y,
+                    player.getZ() + lookVec.z,
+                    lookVec.x * 2.5,
+                    lookVec.y * 2.5,
+                    lookVec.z * 2.5,
+                    10.0f, null);
 
-            Vec3 eyePos = player.getEyePosition(1.0f);
-            Vec3 spawnPos = eyePos.add(lookVec.scale(1.0f));
-
-            BulletEntity bullet = new BulletEntity(
-                    ModEntityTypes.BULLET.get(),
-                    level,
-                    spawnPos,
-                    velocity,
-                    10.0f
-            );
-
-            level.addFreshEntity(bullet);
-
-            level.playSound(null, player.getX(), player.getY(), player.getZ(),
-                    SoundEvents.GENERIC_EXPLODE, SoundSource.PLAYERS, 0.5f, 1.5f);
+            BulletManager.get(serverLevel).fireEvents().record(player.blockPosition());
 
             player.getCooldowns().addCooldown(this, 10);
 
@@ -0,0 +1,202 @@
+package com.testgunmod.network;
+
+import com.testgunmod.client.ClientBulletManager;
+import com.testgunmod.projectile.BulletStore;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.network.NetworkEvent;
+
+import javax.annotation.Nullable;
+import java.util.function.Supplier;
+
+/**
+ * Bullets a level spawned and retired in one tick, as far as one player needs
+ * them. Clients simulate the spawned bullets themselves, so no per-tick
+ * position data follows.
+ * Velocities travel as floats; the server rounds them the same way at spawn
+ * so both sides integrate identical trajectories.
+ */
+public class BulletBatchPacket {
+
+    private final long gameTime;
+
+    private final int spawnCount;
+    private final int[] ids;
+    private final double[] positions;
+    private final float[] velocities;
+    private final int[] seeds;
+    private final int[] ages;
+    // Age at which a spawn is removed by the client, or 0 if it flies until told otherwise.
+    private final int[] lifetimes;
+
+    private final int[] despawnIds;
+
+    private BulletBatchPacket(long gameTime, int spawnCount, int[] ids, double[] positions, float[] velocities,
+                              int[] seeds, int[] ages, int[] lifetimes, int[] despawnIds) {
+        this.gameTime = gameTime;
+        this.spawnCount = spawnCount;
+        this.ids = ids;
+        this.positions = positions;
+        this.velocities = velocities;
+        this.seeds = seeds;
+        this.ages = ages;
+        this.lifetimes = lifetimes;
+        this.despawnIds = despawnIds;
+    }
+
+    /**
+     * The spawns at the given store indices, the ones relevant to the receiving player,
+     * after those held back for the player in earlier ticks.
+     */
+    public static BulletBatchPacket of(long gameTime, @Nullable BulletStore carried, @Nullable IntArrayList carriedSelected,
+                                       BulletStore spawns, IntArrayList selected, int[] despawns) {
+        int carriedCount = carriedSelected != null ? carriedSelected.size() : 0;
+        int count = carriedCount + selected.size();
+        int[] ids = new int[count];
+        double[] positions = new double[count * 3];
+        float[] velocities = new float[count * 3];
+        int[] seeds = new int[count];
+        int[] ages = new int[count];
+        int[] lifetimes = new int[count];
+
+        for (int n = 0; n < count; n++) {
+            BulletStore source = n < carriedCount ? carried : spawns;
+            int i = n < carriedCount ? carriedSelected.getInt(n) : selected.getInt(n - carriedCount);
+            ids[n] = source.id(i);
+            positions[n * 3] = source.x(i);
+            positions[n * 3 + 1] = source.y(i);
+            positions[n * 3 + 2] = source.z(i);
+            velocities[n * 3] = (float) source.vx(i);
+            velocities[n * 3 + 1] = (float) source.vy(i);
+            velocities[n * 3 + 2] = (float) source.vz(i);
+            seeds[n] = source.seed(i);
+            ages[n] = source.age(i);
+            lifetimes[n] = source.expiry(i) == Integer.MAX_VALUE ? 0 : source.expiry(i);
+        }
+
+        return new BulletBatchPacket(gameTime, count, ids, positions, velocities, seeds, ages, lifetimes, despawns);
+    }
+
+    public long gameTime() {
+        return gameTime;
+    }
+
+    public int spawnCount() {
+        return spawnCount;
+    }
+
+    public int id(int i) {
+        return ids[i];
+    }
+
+    public double x(int i) {
+        return positions[i * 3];
+    }
+
+    public double y(int i) {
+        return positions[i * 3 + 1];
+    }
+
+    public double z(int i) {
+        return positions[i * 3 + 2];
+    }
+
+    public float vx(int i) {
+        return velocities[i * 3];
+    }
+
+    public float vy(int i) {
+        return velocities[i * 3 + 1];
+    }
+
+    public float vz(int i) {
+        return velocities[i * 3 + 2];
+    }
+
+    public int seed(int i) {
+        return seeds[i];
+    }
+
+    public int age(int i) {
+        return ages[i];
+    }
+
+    /**
+     * Age at which the bullet ends by itself, for tracers of shots already resolved; 0 if none.
+     */
+    public int lifetime(int i) {
+        return lifetimes[i];
+    }
+
+    public int[] despawnIds() {
+        return despawnIds;
+    }
+
+    public void encode(FriendlyByteBuf buf) {
+        buf.writeLong(gameTime);
+
+        // Ids are handed out sequentially, so deltas usually fit in a single byte.
+        buf.writeVarInt(spawnCount);
+        int previousId = 0;
+        for (int i = 0; i < spawnCount; i++) {
+            buf.writeVarInt(ids[i] - previousId);
+            previousId = ids[i];
+            buf.writeDouble(positions[i * 3]);
+            buf.writeDouble(positions[i * 3 + 1]);
+            buf.writeDouble(positions[i * 3 + 2]);
+            buf.writeFloat(velocities[i * 3]);
+            buf.writeFloat(velocities[i * 3 + 1]);
+            buf.writeFloat(velocities[i * 3 + 2]);
+            buf.writeInt(seeds[i]);
+            buf.writeVarInt(ages[i]);
+            buf.writeVarInt(lifetimes[i]);
+        }
+
+        buf.writeVarInt(despawnIds.length);
+        for (int id : despawnIds) {
+            buf.writeVarInt(id);
+        }
+    }
+
+    public static BulletBatchPacket decode(FriendlyByteBuf buf) {
+        long gameTime = buf.readLong();
+
+        int count = buf.readVarInt();
+        int[] ids = new int[count];
+        double[] positions = new double[count * 3];
+        float[] velocities = new float[count * 3];
+        int[] seeds = new int[count];
+        int[] ages = new int[count];
+        int[] lifetimes = new int[count];
+
+        int previousId = 0;
+        for (int i = 0; i < count; i++) {
+            previousId += buf.readVarInt();
+            ids[i] = previousId;
+            positions[i * 3] = buf.readDouble();
+            positions[i * 3 + 1] = buf.readDouble();
+            positions[i * 3 + 2] = buf.readDouble();
+            velocities[i * 3] = buf.readFloat();
+            velocities[i * 3 + 1] = buf.readFloat();
+            velocities[i * 3 + 2] = buf.readFloat();
+            seeds[i] = buf.readInt();
+            ages[i] = buf.readVarInt();
+            lifetimes[i] = buf.readVarInt();
+        }
+
+        int despawnCount = buf.readVarInt();
+        int[] despawnIds = new int[despawnCount];
+        for (int i = 0; i < despawnCount; i++) {
+            despawnIds[i] = buf.readVarInt();
+        }
+
+        return new BulletBatchPacket(gameTime, count, ids, positions, velocities, seeds, ages, lifetimes, despawnIds);
+    }
+
+    public void handle(Supplier<NetworkEvent.Context> context) {
+        DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> ClientBulletManager.get().handleBatch(this));
+        context.get().setPacketHandled(true);
+    }
+}
@@ -0,0 +1,69 @@
+package com.testgunmod.network;
+
+import com.testgunmod.client.ClientBulletCorrections;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.world.phys.Vec3;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.network.NetworkEvent;
+
+import java.util.function.Supplier;
+
+/**
+ * Re-anchors a bullet entity's trajectory on tracking clients. Sent only when
+ * a bullet hits something or is moved off its predicted path.
+ */
+public class BulletCorrectionPacket {
+
+    private final int entityId;
+    private final Vec3 position;
+    private final Vec3 velocity;
+    private final int age;
+
+    public BulletCorrectionPacket(int entityId, Vec3 position, Vec3 velocity, int age) {
+        this.entityId = entityId;
+        this.position = position;
+        this.velocity = velocity;
+        this.age = age;
+    }
+
+    public int entityId() {
+        return entityId;
+    }
+
+    public Vec3 position() {
+        return position;
+    }
+
+    public Vec3 velocity() {
+        return velocity;
+    }
+
+    public int age() {
+        return age;
+    }
+
+    public void encode(FriendlyByteBuf buf) {
+        buf.writeVarInt(entityId);
+        buf.writeDouble(position.x);
+        buf.writeDouble(position.y);
+        buf.writeDouble(position.z);
+        buf.writeDouble(velocity.x);
+        buf.writeDouble(velocity.y);
+        buf.writeDouble(velocity.z);
+        buf.writeVarInt(age);
+    }
+
+    public static BulletCorrectionPacket decode(FriendlyByteBuf buf) {
+        int entityId = buf.readVarInt();
+        Vec3 position = new Vec3(buf.readDouble(), buf.readDouble(), buf.readDouble());
+        Vec3 velocity = new Vec3(buf.readDouble(), buf.readDouble(), buf.readDouble());
+        int age = buf.readVarInt();
+        return new BulletCorrectionPacket(entityId, position, velocity, age);
+    }
+
+    public void handle(Supplier<NetworkEvent.Context> context) {
+        DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> ClientBulletCorrections.apply(this));
+        context.get().setPacketHandled(true);
+    }
+}
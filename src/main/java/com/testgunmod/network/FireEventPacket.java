@@ -0,0 +1,60 @@
+package com.testgunmod.network;
+
+import com.testgunmod.client.ClientGunfire;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.network.NetworkEvent;
+
+import java.util.function.Supplier;
+
+/**
+ * Shots fired near a player in one tick, one entry per 16-block area with the
+ * position of its first shot and the number of shots.
+ */
+public class FireEventPacket {
+
+    private final long[] positions;
+    private final int[] shots;
+
+    public FireEventPacket(long[] positions, int[] shots) {
+        this.positions = positions;
+        this.shots = shots;
+    }
+
+    public int size() {
+        return positions.length;
+    }
+
+    public long position(int i) {
+        return positions[i];
+    }
+
+    public int shots(int i) {
+        return shots[i];
+    }
+
+    public void encode(FriendlyByteBuf buf) {
+        buf.writeVarInt(positions.length);
+        for (int i = 0; i < positions.length; i++) {
+            buf.writeLong(positions[i]);
+            buf.writeVarInt(shots[i]);
+        }
+    }
+
+    public static FireEventPacket decode(FriendlyByteBuf buf) {
+        int count = buf.readVarInt();
+        long[] positions = new long[count];
+        int[] shots = new int[count];
+        for (int i = 0; i < count; i++) {
+            positions[i] = buf.readLong();
+            shots[i] = buf.readVarInt();
+        }
+        return new FireEventPacket(positions, shots);
+    }
+
+    public void handle(Supplier<NetworkEvent.Context> context) {
+        DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> ClientGunfire.get().handle(this));
+        context.get().setPacketHandled(true);
+    }
+}
@@ -0,0 +1,41 @@
+package com.testgunmod.network;
+
+import com.testgunmod.TestGunMod;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraftforge.network.NetworkDirection;
+import net.minecraftforge.network.NetworkRegistry;
+import net.minecraftforge.network.simple.SimpleChannel;
+
+public class ModNetwork {
+
+    private static final String PROTOCOL_VERSION = "1";
+
+    public static final SimpleChannel CHANNEL = NetworkRegistry.newSimpleChannel(
+            new ResourceLocation(TestGunMod.MOD_ID, "main"),
+            () -> PROTOCOL_VERSION,
+            PROTOCOL_VERSION::equals,
+            PROTOCOL_VERSION::equals
+    );
+
+    private static int nextId = 0;
+
+    public static void register() {
+        CHANNEL.messageBuilder(BulletBatchPacket.class, nextId++, NetworkDirection.PLAY_TO_CLIENT)
+                .encoder(BulletBatchPacket::encode)
+                .decoder(BulletBatchPacket::decode)
+                .consumerMainThread(BulletBatchPacket::handle)
+                .add();
+
+        CHANNEL.messageBuilder(BulletCorrectionPacket.class, nextId++, NetworkDirection.PLAY_TO_CLIENT)
+                .encoder(BulletCorrectionPacket::encode)
+                .decoder(BulletCorrectionPacket::decode)
+                .consumerMainThread(BulletCorrectionPacket::handle)
+                .add();
+
+        CHANNEL.messageBuilder(FireEventPacket.class, nextId++, NetworkDirection.PLAY_TO_CLIENT)
+                .encoder(FireEventPacket::encode)
+                .decoder(FireEventPacket::decode)
+                .consumerMainThread(FireEventPacket::handle)
+                .add();
+    }
+}
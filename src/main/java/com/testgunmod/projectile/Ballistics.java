@@ -0,0 +1,124 @@
+package com.testgunmod.projectile;
+
+/**
+ * Closed-form bullet trajectory shared by the server and the client.
+ * <p>
+ * Each tick a bullet moves by its velocity, then horizontal velocity is
+ * scaled by {@link #AIR_DRAG} and {@link #GRAVITY} is subtracted from the
+ * vertical velocity. Unrolling that recurrence gives the state after
+ * {@code n} ticks directly from the spawn state, so both sides agree on a
+ * bullet's position without exchanging per-tick updates.
+ */
+public final class Ballistics {
+
+    public static final double AIR_DRAG = 0.99;
+    public static final double GRAVITY = 0.015;
+
+    private static final int TABLE_SIZE = 4096;
+
+    private static final double LOG_DRAG = Math.log(AIR_DRAG);
+
+    // DRAG_POWERS[n] = AIR_DRAG^n, DRAG_SUMS[n] = AIR_DRAG^0 + ... + AIR_DRAG^(n-1).
+    // Built by repeated multiplication so every JVM produces the same values.
+    private static final double[] DRAG_POWERS = new double[TABLE_SIZE];
+    private static final double[] DRAG_SUMS = new double[TABLE_SIZE];
+
+    static {
+        double power = 1.0;
+        double sum = 0.0;
+        for (int n = 0; n < TABLE_SIZE; n++) {
+            DRAG_POWERS[n] = power;
+            DRAG_SUMS[n] = sum;
+            sum += power;
+            power *= AIR_DRAG;
+        }
+    }
+
+    private Ballistics() {
+    }
+
+    public static double dragPower(int ticks) {
+        return ticks < TABLE_SIZE ? DRAG_POWERS[ticks] : StrictMath.pow(AIR_DRAG, ticks);
+    }
+
+    public static double dragSum(int ticks) {
+        return ticks < TABLE_SIZE ? DRAG_SUMS[ticks] : (1.0 - dragPower(ticks)) / (1.0 - AIR_DRAG);
+    }
+
+    public static double horizontal(double origin, double velocity, int ticks) {
+        return origin + velocity * dragSum(ticks);
+    }
+
+    public static double vertical(double origin, double velocity, int ticks) {
+        return origin + velocity * ticks - GRAVITY * ticks * (ticks - 1) * 0.5;
+    }
+
+    /**
+     * First whole tick at which the height is below {@code height}; 0 if it already is.
+     * Gravity always brings a bullet down eventually, so this is always finite.
+     */
+    public static int ticksUntilBelow(double originY, double velocityY, double height) {
+        if (originY < height) {
+            return 0;
+        }
+        // y(t) = originY + velocityY * t - GRAVITY * t * (t - 1) / 2 crosses height at the larger root.
+        double b = velocityY + GRAVITY * 0.5;
+        double root = (b + Math.sqrt(b * b + 2.0 * GRAVITY * (originY - height))) / GRAVITY;
+        return (int) Math.min(Integer.MAX_VALUE, Math.floor(root) + 1);
+    }
+
+    /**
+     * Position {@code fraction} of the way through tick {@code ticks}, on the smooth curve
+     * through the per-tick positions. Agrees with {@link #horizontal(double, double, int)}
+     * at {@code fraction} 0; use that overload at whole ticks to stay bit-exact with clients.
+     */
+    public static double horizontal(double origin, double velocity, int ticks, double fraction) {
+        double base = horizontal(origin, velocity, ticks);
+        if (fraction == 0.0) {
+            return base;
+        }
+        return base + velocity * dragPower(ticks) * (1.0 - Math.exp(LOG_DRAG * fraction)) / (1.0 - AIR_DRAG);
+    }
+
+    public static double vertical(double origin, double velocity, int ticks, double fraction) {
+        double t = ticks + fraction;
+        return origin + velocity * t - GRAVITY * t * (t - 1) * 0.5;
+    }
+
+    /**
+     * Upper bound on how far the curve strays from the straight segment between
+     * ticks {@code ticks} and {@code ticks + 1}, from the sagitta of each axis.
+     */
+    public static double chordError(double velocityX, double velocityY, double velocityZ, int ticks) {
+        return chordError(velocityX, velocityY, velocityZ, ticks, 1);
+    }
+
+    /**
+     * Bound over {@code span} ticks from {@code ticks}; the sagitta grows with the square of the span.
+     */
+    public static double chordError(double velocityX, double velocityY, double velocityZ, int ticks, int span) {
+        double horizontalSpeed = Math.sqrt(velocityX * velocityX + velocityZ * velocityZ);
+        double horizontal = horizontalSpeed * dragPower(ticks) * LOG_DRAG * LOG_DRAG / (1.0 - AIR_DRAG) / 8.0;
+        double vertical = GRAVITY / 8.0;
+        return Math.sqrt(horizontal * horizontal + vertical * vertical) * span * span;
+    }
+
+    /**
+     * Number of straight sub-steps that follow a tick with the given {@link #chordError}
+     * within {@code tolerance} blocks; a chord's error shrinks with the square of the count.
+     */
+    public static int subSteps(double chordError, double tolerance, int maxSubSteps) {
+        if (chordError <= tolerance) {
+            return 1;
+        }
+        return Math.max(1, Math.min(maxSubSteps, (int) Math.ceil(Math.sqrt(chordError / tolerance))));
+    }
+
+    public static double horizontalVelocity(double velocity, int ticks) {
+        return velocity * dragPower(ticks);
+    }
+
+    public static double verticalVelocity(double velocity, int ticks) {
+        return velocity - GRAVITY * ticks;
+    }
+}
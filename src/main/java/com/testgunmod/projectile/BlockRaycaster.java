@@ -0,0 +1,393 @@
+package com.testgunmod.projectile;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2BooleanOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.VoxelShape;
+
+import java.util.List;
+
+/**
+ * Block collision for bullets, backed by a per-section cache of collision
+ * flags. A section is classified once (empty, full cube or complex per
+ * block) and reused by every bullet until a block change in it is observed,
+ * its chunk unloads or it reaches {@link #MAX_SNAPSHOT_AGE}. Only complex
+ * blocks test against the boxes of their {@link VoxelShape}, after checking
+ * that their state is still the one the boxes were taken from: doors,
+ * trapdoors and fence gates change without notifying neighbours.
+ * <p>
+ * Matches {@code Level.clip} with {@code ClipContext.Block.COLLIDER} and no
+ * fluids, except that unloaded chunks are treated as empty instead of being
+ * loaded.
+ */
+public class BlockRaycaster implements VoxelSource {
+
+    // Safety net for other changes that do not notify neighbours (pistons, setBlock without updates).
+    private static final int MAX_SNAPSHOT_AGE = 100;
+    private static final int MAX_CACHED_SECTIONS = 8192;
+    private static final int MAX_CACHED_SHAPES = 4096;
+
+    private static final SectionSnapshot UNLOADED_SECTION = new SectionSnapshot(null, null, null, null, 0L);
+
+    private final ServerLevel level;
+    private final Long2ObjectOpenHashMap<SectionSnapshot> sections = new Long2ObjectOpenHashMap<>();
+    private final BlockPos.MutableBlockPos scratchPos = new BlockPos.MutableBlockPos();
+    // Most states share one shape instance, so complex blocks are flattened once per shape.
+    private final Reference2ObjectOpenHashMap<VoxelShape, double[]> shapeBoxes = new Reference2ObjectOpenHashMap<>();
+    // Blocks with states that have no collision shape and states that do, like fence gates.
+    private final Reference2BooleanOpenHashMap<Block> shapeChanging = new Reference2BooleanOpenHashMap<>();
+
+    private long lastKey = Long.MIN_VALUE;
+    private SectionSnapshot lastSection;
+
+    BlockRaycaster(ServerLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Fraction along the segment of its first block collision, or {@link Intersections#MISS}.
+     */
+    public double trace(double fromX, double fromY, double fromZ, double toX, double toY, double toZ) {
+        return VoxelRaycast.trace(this, fromX, fromY, fromZ, toX, toY, toZ);
+    }
+
+    /**
+     * Snapshots every section the segment's bounding box touches, so that a
+     * {@link #preparedView()} can trace it off the main thread.
+     */
+    public void prepare(double fromX, double fromY, double fromZ, double toX, double toY, double toZ) {
+        int minX = Mth.floor(Math.min(fromX, toX)) >> 4;
+        int minY = Mth.floor(Math.min(fromY, toY)) >> 4;
+        int minZ = Mth.floor(Math.min(fromZ, toZ)) >> 4;
+        int maxX = Mth.floor(Math.max(fromX, toX)) >> 4;
+        int maxY = Mth.floor(Math.max(fromY, toY)) >> 4;
+        int maxZ = Mth.floor(Math.max(fromZ, toZ)) >> 4;
+        for (int sx = minX; sx <= maxX; sx++) {
+            for (int sy = minY; sy <= maxY; sy++) {
+                for (int sz = minZ; sz <= maxZ; sz++) {
+                    section(sx, sy, sz);
+                }
+            }
+        }
+    }
+
+    /**
+     * A read-only view over the snapshots taken so far. Views never build or
+     * expire snapshots, so any number of them may trace concurrently as long
+     * as nothing touches this raycaster meanwhile. A trace that reaches a section
+     * that was not prepared is marked {@link PreparedView#incomplete()} and has
+     * to be redone on the main thread.
+     */
+    public PreparedView preparedView() {
+        return new PreparedView();
+    }
+
+    /**
+     * Drops the snapshots once there are too many. Called between ticks only: clearing
+     * while bullets are being prepared would lose sections their prepared views rely on.
+     */
+    public void trim() {
+        if (sections.size() > MAX_CACHED_SECTIONS) {
+            sections.clear();
+            lastKey = Long.MIN_VALUE;
+            lastSection = null;
+        }
+    }
+
+    @Override
+    public byte flags(int x, int y, int z) {
+        SectionSnapshot section = section(x >> 4, y >> 4, z >> 4);
+        if (section.flags == null) {
+            return EMPTY;
+        }
+        return section.flags[index(x, y, z)];
+    }
+
+    @Override
+    public boolean regionEmpty(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        for (int sx = minX >> 4; sx <= maxX >> 4; sx++) {
+            for (int sy = minY >> 4; sy <= maxY >> 4; sy++) {
+                for (int sz = minZ >> 4; sz <= maxZ >> 4; sz++) {
+                    if (section(sx, sy, sz).flags != null) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public double clipComplex(int x, int y, int z,
+                              double fromX, double fromY, double fromZ,
+                              double toX, double toY, double toZ) {
+        SectionSnapshot section = section(x >> 4, y >> 4, z >> 4);
+        int index = index(x, y, z);
+        BlockState state = section.source.getBlockState(x & 15, y & 15, z & 15);
+        if (state != section.states[index]) {
+            // Changed without an update we saw: clip it as it is now and rebuild the section on next use.
+            invalidateSection(SectionPos.asLong(x >> 4, y >> 4, z >> 4));
+            double[] boxes = boxes(state.getCollisionShape(level, scratchPos.set(x, y, z)));
+            return clipBoxes(boxes, x, y, z, fromX, fromY, fromZ, toX, toY, toZ);
+        }
+        return clipBoxes(section.boxes[index], x, y, z, fromX, fromY, fromZ, toX, toY, toZ);
+    }
+
+    // Boxes are stored flat as minX, minY, minZ, maxX, maxY, maxZ relative to the block.
+    private static double clipBoxes(double[] boxes, int x, int y, int z,
+                                    double fromX, double fromY, double fromZ,
+                                    double toX, double toY, double toZ) {
+        double deltaX = toX - fromX;
+        double deltaY = toY - fromY;
+        double deltaZ = toZ - fromZ;
+        double nearest = Intersections.MISS;
+        for (int i = 0; i < boxes.length; i += 6) {
+            double fraction = Intersections.segmentAabb(fromX, fromY, fromZ, deltaX, deltaY, deltaZ,
+                    x + boxes[i], y + boxes[i + 1], z + boxes[i + 2],
+                    x + boxes[i + 3], y + boxes[i + 4], z + boxes[i + 5]);
+            if (fraction != Intersections.MISS && (nearest == Intersections.MISS || fraction < nearest)) {
+                nearest = fraction;
+            }
+        }
+        return nearest;
+    }
+
+    private double[] boxes(VoxelShape shape) {
+        double[] boxes = shapeBoxes.get(shape);
+        if (boxes == null) {
+            List<AABB> aabbs = shape.toAabbs();
+            boxes = new double[aabbs.size() * 6];
+            for (int i = 0; i < aabbs.size(); i++) {
+                AABB box = aabbs.get(i);
+                boxes[i * 6] = box.minX;
+                boxes[i * 6 + 1] = box.minY;
+                boxes[i * 6 + 2] = box.minZ;
+                boxes[i * 6 + 3] = box.maxX;
+                boxes[i * 6 + 4] = box.maxY;
+                boxes[i * 6 + 5] = box.maxZ;
+            }
+            if (shapeBoxes.size() >= MAX_CACHED_SHAPES) {
+                shapeBoxes.clear();
+            }
+            shapeBoxes.put(shape, boxes);
+        }
+        return boxes;
+    }
+
+    private boolean shapeChanging(BlockState state, BlockPos pos) {
+        Block block = state.getBlock();
+        if (!shapeChanging.containsKey(block)) {
+            boolean changing = false;
+            for (BlockState other : block.getStateDefinition().getPossibleStates()) {
+                if (!other.getCollisionShape(level, pos).isEmpty()) {
+                    changing = true;
+                    break;
+                }
+            }
+            shapeChanging.put(block, changing);
+        }
+        return shapeChanging.getBoolean(block);
+    }
+
+    public void invalidate(BlockPos pos) {
+        invalidateSection(SectionPos.asLong(pos.getX() >> 4, pos.getY() >> 4, pos.getZ() >> 4));
+    }
+
+    public void invalidateRange(BlockPos pos, int radius) {
+        int minX = (pos.getX() - radius) >> 4;
+        int minY = (pos.getY() - radius) >> 4;
+        int minZ = (pos.getZ() - radius) >> 4;
+        int maxX = (pos.getX() + radius) >> 4;
+        int maxY = (pos.getY() + radius) >> 4;
+        int maxZ = (pos.getZ() + radius) >> 4;
+        for (int sx = minX; sx <= maxX; sx++) {
+            for (int sy = minY; sy <= maxY; sy++) {
+                for (int sz = minZ; sz <= maxZ; sz++) {
+                    invalidateSection(SectionPos.asLong(sx, sy, sz));
+                }
+            }
+        }
+    }
+
+    public void invalidateChunk(int chunkX, int chunkZ) {
+        for (int sy = level.getMinSection(); sy < level.getMaxSection(); sy++) {
+            invalidateSection(SectionPos.asLong(chunkX, sy, chunkZ));
+        }
+    }
+
+    private void invalidateSection(long key) {
+        sections.remove(key);
+        if (key == lastKey) {
+            lastKey = Long.MIN_VALUE;
+            lastSection = null;
+        }
+    }
+
+    private SectionSnapshot section(int sx, int sy, int sz) {
+        long key = SectionPos.asLong(sx, sy, sz);
+        long gameTime = level.getGameTime();
+        if (key == lastKey && lastSection.builtAt + MAX_SNAPSHOT_AGE >= gameTime) {
+            return lastSection;
+        }
+
+        SectionSnapshot section = sections.get(key);
+        if (section == null || section.builtAt + MAX_SNAPSHOT_AGE < gameTime) {
+            section = build(sx, sy, sz, gameTime);
+            if (section == UNLOADED_SECTION) {
+                // Answer as empty but do not remember it; the chunk may load later.
+                return section;
+            }
+            sections.put(key, section);
+        }
+
+        lastKey = key;
+        lastSection = section;
+        return section;
+    }
+
+    private SectionSnapshot build(int sx, int sy, int sz, long gameTime) {
+        if (sy < level.getMinSection() || sy >= level.getMaxSection()) {
+            return new SectionSnapshot(null, null, null, null, gameTime);
+        }
+
+        LevelChunk chunk = level.getChunkSource().getChunkNow(sx, sz);
+        if (chunk == null) {
+            return UNLOADED_SECTION;
+        }
+
+        LevelChunkSection chunkSection = chunk.getSection(level.getSectionIndexFromSectionY(sy));
+        if (chunkSection.hasOnlyAir()) {
+            return new SectionSnapshot(null, null, null, null, gameTime);
+        }
+
+        byte[] flags = new byte[4096];
+        double[][] boxes = null;
+        BlockState[] states = null;
+        int baseX = SectionPos.sectionToBlockCoord(sx);
+        int baseY = SectionPos.sectionToBlockCoord(sy);
+        int baseZ = SectionPos.sectionToBlockCoord(sz);
+
+        for (int ly = 0; ly < 16; ly++) {
+            for (int lz = 0; lz < 16; lz++) {
+                for (int lx = 0; lx < 16; lx++) {
+                    BlockState state = chunkSection.getBlockState(lx, ly, lz);
+                    if (state.isAir()) {
+                        continue;
+                    }
+
+                    VoxelShape shape = state.getCollisionShape(level, scratchPos.set(baseX + lx, baseY + ly, baseZ + lz));
+                    // An open fence gate has no shape, but closing it is not announced either.
+                    if (shape.isEmpty() && !shapeChanging(state, scratchPos)) {
+                        continue;
+                    }
+
+                    int index = (ly << 8) | (lz << 4) | lx;
+                    if (shape == Shapes.block()) {
+                        flags[index] = FULL;
+                    } else {
+                        if (boxes == null) {
+                            boxes = new double[4096][];
+                            states = new BlockState[4096];
+                        }
+                        flags[index] = COMPLEX;
+                        boxes[index] = boxes(shape);
+                        states[index] = state;
+                    }
+                }
+            }
+        }
+
+        return new SectionSnapshot(flags, boxes, states, chunkSection, gameTime);
+    }
+
+    public class PreparedView implements VoxelSource {
+
+        private long lastKey = Long.MIN_VALUE;
+        private SectionSnapshot lastSection;
+        private boolean incomplete;
+
+        /**
+         * Whether a trace since the last {@link #reset()} needed something that was not
+         * prepared. Its result is then meaningless and the trace must be redone.
+         */
+        public boolean incomplete() {
+            return incomplete;
+        }
+
+        public void reset() {
+            incomplete = false;
+        }
+
+        @Override
+        public byte flags(int x, int y, int z) {
+            SectionSnapshot section = section(x >> 4, y >> 4, z >> 4);
+            if (section == null) {
+                // Unknown, not empty: stop the trace here and let the main thread redo it.
+                incomplete = true;
+                return FULL;
+            }
+            if (section.flags == null) {
+                return EMPTY;
+            }
+            return section.flags[index(x, y, z)];
+        }
+
+        @Override
+        public boolean regionEmpty(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+            for (int sx = minX >> 4; sx <= maxX >> 4; sx++) {
+                for (int sy = minY >> 4; sy <= maxY >> 4; sy++) {
+                    for (int sz = minZ >> 4; sz <= maxZ >> 4; sz++) {
+                        SectionSnapshot section = section(sx, sy, sz);
+                        // Not prepared means unknown here, not empty.
+                        if (section == null || section.flags != null) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public double clipComplex(int x, int y, int z,
+                                  double fromX, double fromY, double fromZ,
+                                  double toX, double toY, double toZ) {
+            SectionSnapshot section = section(x >> 4, y >> 4, z >> 4);
+            int index = index(x, y, z);
+            // The main thread waits for the views, so reading the chunk section is safe here.
+            if (section.source.getBlockState(x & 15, y & 15, z & 15) != section.states[index]) {
+                incomplete = true;
+                return 0.0;
+            }
+            return clipBoxes(section.boxes[index], x, y, z, fromX, fromY, fromZ, toX, toY, toZ);
+        }
+
+        private SectionSnapshot section(int sx, int sy, int sz) {
+            long key = SectionPos.asLong(sx, sy, sz);
+            if (key != lastKey) {
+                lastKey = key;
+                lastSection = sections.get(key);
+            }
+            return lastSection;
+        }
+    }
+
+    private static int index(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    // States are kept for complex blocks only, to notice when they change unannounced.
+    private record SectionSnapshot(byte[] flags, double[][] boxes, BlockState[] states,
+                                   LevelChunkSection source, long builtAt) {
+    }
+}
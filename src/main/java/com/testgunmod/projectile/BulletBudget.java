@@ -0,0 +1,112 @@
+package com.testgunmod.projectile;
+
+import com.mojang.logging.LogUtils;
+import com.testgunmod.Config;
+import com.testgunmod.entity.BulletEntity;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import org.slf4j.Logger;
+
+/**
+ * Per-level bullet budget. Caps live bullets per level and per spawn chunk,
+ * and steps a pressure level up or down once a second from the server's
+ * average tick time, with separate thresholds for raising and lowering it so
+ * it does not flap:
+ * <ol>
+ *     <li>bullet lifetime is halved;</li>
+ *     <li>turrets fire bursts: one bullet every {@link #BURST_SIZE} shots, carrying their combined damage;</li>
+ *     <li>lifetime is quartered and turret fire rate is halved on top of bursts.</li>
+ * </ol>
+ */
+public class BulletBudget {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    public static final int MAX_PRESSURE = 3;
+    public static final int BURST_SIZE = 4;
+
+    private static final int EVALUATE_INTERVAL = 20;
+
+    private int pressure;
+
+    private int live;
+    // Spawn chunk -> live bullets spawned there.
+    private final Long2IntOpenHashMap perChunk = new Long2IntOpenHashMap();
+
+    public void evaluate(ServerLevel level) {
+        if (level.getGameTime() % EVALUATE_INTERVAL != 0) {
+            return;
+        }
+        if (!Config.budgetEnabled) {
+            pressure = 0;
+            return;
+        }
+
+        float mspt = level.getServer().getAverageTickTime();
+        if (mspt > Config.budgetRaiseMspt && pressure < MAX_PRESSURE) {
+            pressure++;
+            LOGGER.info("Bullet budget in {} raised to {} at {} mspt", level.dimension().location(), pressure, mspt);
+        } else if (mspt < Config.budgetLowerMspt && pressure > 0) {
+            pressure--;
+            LOGGER.info("Bullet budget in {} lowered to {} at {} mspt", level.dimension().location(), pressure, mspt);
+        }
+    }
+
+    public int pressure() {
+        return pressure;
+    }
+
+    public int lifetime() {
+        return switch (pressure) {
+            case 0 -> BulletEntity.MAX_LIFETIME_TICKS;
+            case 1, 2 -> BulletEntity.MAX_LIFETIME_TICKS / 2;
+            default -> BulletEntity.MAX_LIFETIME_TICKS / 4;
+        };
+    }
+
+    /**
+     * Turret shots merged into one bullet.
+     */
+    public int burstSize() {
+        return pressure >= 2 ? BURST_SIZE : 1;
+    }
+
+    /**
+     * Multiplier on the turret fire interval, including the shots merged into bursts.
+     */
+    public int fireIntervalScale() {
+        return burstSize() * (pressure >= 3 ? 2 : 1);
+    }
+
+    public int live() {
+        return live;
+    }
+
+    /**
+     * Claims room for one bullet spawned at (x, z); false when the level or chunk is full.
+     * Every successful call must be matched by {@link #release}.
+     */
+    public boolean tryAcquire(double x, double z) {
+        long chunk = chunkKey(x, z);
+        if (Config.budgetEnabled
+                && (live >= Config.maxBulletsPerLevel || perChunk.get(chunk) >= Config.maxBulletsPerChunk)) {
+            return false;
+        }
+        live++;
+        perChunk.addTo(chunk, 1);
+        return true;
+    }
+
+    public void release(double x, double z) {
+        long chunk = chunkKey(x, z);
+        live--;
+        if (perChunk.addTo(chunk, -1) <= 1) {
+            perChunk.remove(chunk);
+        }
+    }
+
+    private static long chunkKey(double x, double z) {
+        return ChunkPos.asLong((int) Math.floor(x) >> 4, (int) Math.floor(z) >> 4);
+    }
+}
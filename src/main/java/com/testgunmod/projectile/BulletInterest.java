@@ -0,0 +1,182 @@
+package com.testgunmod.projectile;
+
+import com.testgunmod.Config;
+import com.testgunmod.entity.BulletEntity;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.phys.Vec3;
+
+import java.util.Arrays;
+
+/**
+ * Per-player relevance of bullets, for deciding what each player is sent.
+ * <p>
+ * A bullet is {@link #FULL} for a player when it is close, heading for them or
+ * in view and approaching; {@link #PERIPHERAL} when it is in range and either in
+ * front of them or approaching; otherwise {@link #IGNORED}. Each player gets at
+ * most {@link Config#maxBulletsPerPlayer} new bullets per tick, and peripheral
+ * ones only take the first half of that so relevant fire is never crowded out.
+ */
+public class BulletInterest {
+
+    public static final byte IGNORED = 0;
+    public static final byte PERIPHERAL = 1;
+    public static final byte FULL = 2;
+
+    // A bullet whose straight-line path passes closer than this is incoming fire.
+    private static final double NEAR_MISS = 6.0;
+    // Cosine of the half-angle of the cone counted as in view.
+    private static final double VIEW_COS = 0.5;
+
+    private final ServerLevel level;
+
+    private long refreshedAt = Long.MIN_VALUE;
+    private int playerCount;
+    private ServerPlayer[] players = new ServerPlayer[0];
+    // Eye positions and look directions, three values per player.
+    private double[] eyes = new double[0];
+    private double[] looks = new double[0];
+    private int[] sent = new int[0];
+    private final Int2IntOpenHashMap indexById = new Int2IntOpenHashMap();
+
+    BulletInterest(ServerLevel level) {
+        this.level = level;
+        indexById.defaultReturnValue(-1);
+    }
+
+    /**
+     * Players in the level this tick; positions and budgets are read once per tick.
+     */
+    public int players() {
+        refresh();
+        return playerCount;
+    }
+
+    public ServerPlayer player(int p) {
+        return players[p];
+    }
+
+    public int indexOf(ServerPlayer player) {
+        refresh();
+        return indexById.get(player.getId());
+    }
+
+    public byte classify(int p, double x, double y, double z, double velocityX, double velocityY, double velocityZ) {
+        double dx = x - eyes[p * 3];
+        double dy = y - eyes[p * 3 + 1];
+        double dz = z - eyes[p * 3 + 2];
+        double distanceSq = dx * dx + dy * dy + dz * dz;
+        double fullRate = Config.fullRateDistance;
+        if (distanceSq <= fullRate * fullRate) {
+            return FULL;
+        }
+
+        // Positive when the bullet is getting closer.
+        double closing = -(dx * velocityX + dy * velocityY + dz * velocityZ);
+        if (closing > 0.0) {
+            double speedSq = velocityX * velocityX + velocityY * velocityY + velocityZ * velocityZ;
+            double t = closing / speedSq;
+            double mx = dx + velocityX * t;
+            double my = dy + velocityY * t;
+            double mz = dz + velocityZ * t;
+            // Within the lifetime it could still reach us, however far away it is now.
+            if (t <= BulletEntity.MAX_LIFETIME_TICKS && mx * mx + my * my + mz * mz <= NEAR_MISS * NEAR_MISS) {
+                return FULL;
+            }
+        }
+
+        double range = Config.interestRange;
+        if (distanceSq > range * range) {
+            return IGNORED;
+        }
+
+        double facing = dx * looks[p * 3] + dy * looks[p * 3 + 1] + dz * looks[p * 3 + 2];
+        if (facing >= VIEW_COS * Math.sqrt(distanceSq)) {
+            return closing > 0.0 || distanceSq <= range * range * 0.25 ? FULL : PERIPHERAL;
+        }
+        return closing > 0.0 || facing > 0.0 ? PERIPHERAL : IGNORED;
+    }
+
+    /**
+     * Ticks between collision sweeps for a bullet at this position: every tick within
+     * {@link Config#schedulerNearDistance} of a player, doubling with each doubling of the
+     * distance up to {@link Config#schedulerMaxInterval}. Always a power of two.
+     */
+    public int updateInterval(double x, double y, double z) {
+        int max = Integer.highestOneBit(Math.max(1, Config.schedulerMaxInterval));
+        if (max == 1) {
+            return 1;
+        }
+
+        refresh();
+        double nearestSq = Double.MAX_VALUE;
+        for (int p = 0; p < playerCount; p++) {
+            double dx = x - eyes[p * 3];
+            double dy = y - eyes[p * 3 + 1];
+            double dz = z - eyes[p * 3 + 2];
+            nearestSq = Math.min(nearestSq, dx * dx + dy * dy + dz * dz);
+        }
+
+        int interval = 1;
+        double limitSq = Config.schedulerNearDistance * Config.schedulerNearDistance;
+        while (interval < max && nearestSq > limitSq) {
+            interval <<= 1;
+            limitSq *= 4.0;
+        }
+        return interval;
+    }
+
+    /**
+     * Whether a bullet sweeps for collisions this tick. Bullets are spread over their
+     * interval by id so a volley does not land on the same tick.
+     */
+    public static boolean due(long gameTime, int id, int interval) {
+        return interval <= 1 || ((gameTime + id) & (interval - 1)) == 0;
+    }
+
+    /**
+     * Counts a new bullet against the player's budget for this tick, if it fits.
+     */
+    public boolean charge(int p, byte tier) {
+        int limit = tier == FULL ? Config.maxBulletsPerPlayer : Config.maxBulletsPerPlayer / 2;
+        if (sent[p] >= limit) {
+            return false;
+        }
+        sent[p]++;
+        return true;
+    }
+
+    private void refresh() {
+        long gameTime = level.getGameTime();
+        if (refreshedAt == gameTime) {
+            return;
+        }
+        refreshedAt = gameTime;
+
+        playerCount = level.players().size();
+        if (players.length < playerCount) {
+            players = new ServerPlayer[playerCount];
+            eyes = new double[playerCount * 3];
+            looks = new double[playerCount * 3];
+            sent = new int[playerCount];
+        }
+        // Do not hold on to players who left.
+        Arrays.fill(players, playerCount, players.length, null);
+
+        indexById.clear();
+        for (int p = 0; p < playerCount; p++) {
+            ServerPlayer player = level.players().get(p);
+            Vec3 look = player.getViewVector(1.0f);
+            players[p] = player;
+            eyes[p * 3] = player.getX();
+            eyes[p * 3 + 1] = player.getEyeY();
+            eyes[p * 3 + 2] = player.getZ();
+            looks[p * 3] = look.x;
+            looks[p * 3 + 1] = look.y;
+            looks[p * 3 + 2] = look.z;
+            sent[p] = 0;
+            indexById.put(player.getId(), p);
+        }
+    }
+}
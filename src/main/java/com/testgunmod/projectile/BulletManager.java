@@ -0,0 +1,794 @@
+package com.testgunmod.projectile;
+
+import com.testgunmod.Config;
+import com.testgunmod.entity.BulletEntity;
+import com.testgunmod.network.BulletBatchPacket;
+import com.testgunmod.network.ModNetwork;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.phys.Vec3;
+import net.minecraftforge.network.PacketDistributor;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Per-level simulation of virtual bullets. Bullets live in a {@link BulletStore}
+ * and are stepped in a single pass at the end of each server tick, using the
+ * shared {@link Ballistics} trajectory and the same collision rules as
+ * {@link BulletEntity#tick()}.
+ * <p>
+ * A tick has a compute phase, which decides every bullet's outcome without
+ * touching the world, and a commit phase on the main thread, which applies
+ * hits and removals in store order. With {@link Config#parallelStepping} the
+ * compute phase runs on {@link BulletWorkers} against block and entity
+ * snapshots taken beforehand. Bullets far from players only sweep for
+ * collisions every few ticks, over the whole path flown since, and bullets
+ * whose arc soon ends with nothing in reach fly the rest of it unswept.
+ */
+public class BulletManager {
+
+    private static final Map<ServerLevel, BulletManager> MANAGERS = new HashMap<>();
+
+    private final ServerLevel level;
+    private final BulletStore store = new BulletStore();
+    private final EntityBroadPhase broadPhase;
+    private final BlockRaycaster blocks;
+
+    private final BulletStore pendingSpawns = new BulletStore();
+    private final IntArrayList pendingDespawns = new IntArrayList();
+    private final BulletInterest interest;
+    private byte[] tiers = new byte[0];
+    private final IntArrayList selected = new IntArrayList();
+    // Relevant spawns a player's budget turned away, sent in a later tick unless retired first.
+    private final Reference2ObjectOpenHashMap<ServerPlayer, BulletStore> carried = new Reference2ObjectOpenHashMap<>();
+    private final IntArrayList carriedSelected = new IntArrayList();
+    private final IntArrayList rejected = new IntArrayList();
+    private final IntOpenHashSet retired = new IntOpenHashSet();
+
+    private int nextId;
+
+    private static final byte FLYING = 0;
+    private static final byte EXPIRED = 1;
+    private static final byte BLOCK_HIT = 2;
+    private static final byte ENTITY_HIT = 3;
+    private static final byte OUT_OF_WORLD = 4;
+    // Not due for a collision sweep this tick; see BulletInterest#updateInterval.
+    private static final byte DEFERRED = 5;
+    // Traced off the main thread into a section that was not prepared; redone in commit.
+    private static final byte UNPREPARED = 6;
+
+    // Every so many ticks a swept bullet looks this far ahead for an arc that ends with nothing to hit.
+    private static final int COAST_CHECK_INTERVAL = 16;
+    private static final int COAST_HORIZON = 32;
+    // How far entities are assumed to close in on a coasting path per tick; faster ones can slip in.
+    private static final double ENTITY_REACH_PER_TICK = 1.0;
+
+    // Per-bullet results of the compute phase, indexed like the store.
+    private byte[] outcomes = new byte[0];
+    private double[] blockFractions = new double[0];
+    private Entity[] targets = new Entity[0];
+
+    private final BulletMetrics metrics = new BulletMetrics();
+    private final TrajectorySweep sweep = new TrajectorySweep();
+    private final BulletBudget budget = new BulletBudget();
+    private final HitAccumulator hits;
+    private final FireEvents fireEvents = new FireEvents();
+    private BulletRegionStore regions;
+    private int lifetime = BulletEntity.MAX_LIFETIME_TICKS;
+    private long gameTime;
+
+    private boolean skyClear;
+    private long skyCheckedAt = Long.MIN_VALUE;
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+    private long lastTickingChunk = Long.MIN_VALUE;
+    private boolean lastChunkTicking;
+    private long tickingCheckedAt = Long.MIN_VALUE;
+
+    private BulletManager(ServerLevel level) {
+        this.level = level;
+        this.broadPhase = new EntityBroadPhase(level);
+        this.blocks = new BlockRaycaster(level);
+        this.interest = new BulletInterest(level);
+        this.hits = new HitAccumulator(level);
+    }
+
+    public static BulletManager get(ServerLevel level) {
+        return MANAGERS.computeIfAbsent(level, BulletManager::new);
+    }
+
+    @Nullable
+    public static BulletManager getIfPresent(ServerLevel level) {
+        return MANAGERS.get(level);
+    }
+
+    static void remove(ServerLevel level) {
+        MANAGERS.remove(level);
+    }
+
+    public BulletStore store() {
+        return store;
+    }
+
+    public EntityBroadPhase broadPhase() {
+        return broadPhase;
+    }
+
+    public BlockRaycaster blocks() {
+        return blocks;
+    }
+
+    public BulletMetrics metrics() {
+        return metrics;
+    }
+
+    public BulletBudget budget() {
+        return budget;
+    }
+
+    /**
+     * Hits from this tick, applied at its end; bullet entities add theirs here as well.
+     */
+    public HitAccumulator hits() {
+        return hits;
+    }
+
+    /**
+     * Shots fired this tick, sent to nearby players as summaries at its end.
+     */
+    public FireEvents fireEvents() {
+        return fireEvents;
+    }
+
+    public BulletInterest interest() {
+        return interest;
+    }
+
+    public BulletRegionStore regions() {
+        if (regions == null) {
+            regions = BulletRegionStore.get(level);
+        }
+        return regions;
+    }
+
+    /**
+     * Sweep for use on the server thread, shared with bullet entities.
+     */
+    public TrajectorySweep sweep() {
+        return sweep;
+    }
+
+    /**
+     * Whether nothing hittable can be above the build height this tick. Bullets up there
+     * coast without collision tests. Only players are considered; other entities that high
+     * are rare enough to ignore.
+     */
+    public boolean skyClear() {
+        long gameTime = level.getGameTime();
+        if (skyCheckedAt != gameTime) {
+            skyCheckedAt = gameTime;
+            skyClear = true;
+            double height = level.getMaxBuildHeight() - 4.0;
+            for (Player player : level.players()) {
+                if (player.getY() + player.getBbHeight() >= height) {
+                    skyClear = false;
+                    break;
+                }
+            }
+        }
+        return skyClear;
+    }
+
+    /**
+     * Whether a segment between the two heights is entirely above the build height while the
+     * sky is clear, so it cannot hit anything.
+     */
+    public boolean coasting(double y, double nextY) {
+        return Math.min(y, nextY) >= level.getMaxBuildHeight() && skyClear();
+    }
+
+    /**
+     * Whether entities, and so bullets, are ticked at the position's chunk. Bullets leaving
+     * the ticking area are retired rather than frozen at its edge; bullets whose own chunk
+     * stops ticking are frozen in the {@link BulletRegionStore}.
+     */
+    public boolean isTicking(double x, double z) {
+        int chunkX = Mth.floor(x) >> 4;
+        int chunkZ = Mth.floor(z) >> 4;
+        long key = ChunkPos.asLong(chunkX, chunkZ);
+        long gameTime = level.getGameTime();
+        if (key != lastTickingChunk || gameTime != tickingCheckedAt) {
+            tickingCheckedAt = gameTime;
+            lastTickingChunk = key;
+            lastChunkTicking = level.isPositionEntityTicking(cursor.set(chunkX << 4, 0, chunkZ << 4));
+        }
+        return lastChunkTicking;
+    }
+
+    public boolean spawn(Vec3 position, Vec3 velocity, float damage, @Nullable Entity owner) {
+        return spawn(position.x, position.y, position.z, velocity.x, velocity.y, velocity.z, damage, owner);
+    }
+
+    public boolean spawn(double x, double y, double z, double velocityX, double velocityY, double velocityZ,
+                         float damage, @Nullable Entity owner) {
+        return spawn(x, y, z, velocityX, velocityY, velocityZ, damage, owner, 0);
+    }
+
+    /**
+     * Adds a bullet {@code age} ticks into its flight unless the {@link BulletBudget} is full,
+     * in which case the shot is dropped. Clients get it at that age, and the ticks the
+     * {@link #hitscan} window skipped as a tracer from the muzzle.
+     */
+    public boolean spawn(double x, double y, double z, double velocityX, double velocityY, double velocityZ,
+                         float damage, @Nullable Entity owner, int age) {
+        if (!budget.tryAcquire(x, z)) {
+            metrics.recordRejectedSpawn();
+            return false;
+        }
+
+        // Clients receive velocities as floats; round here so both sides integrate the same values.
+        double vx = (float) velocityX;
+        double vy = (float) velocityY;
+        double vz = (float) velocityZ;
+        int id = nextId++;
+        int seed = level.random.nextInt();
+        metrics.recordSpawn();
+
+        int index = store.add(id, x, y, z, vx, vy, vz, damage, owner != null ? owner.getId() : -1, seed);
+        store.setAge(index, age);
+        // Nothing can be hit below the world, so the bullet is done once it falls that far.
+        store.setExpiry(index, Ballistics.ticksUntilBelow(y, vy, level.getMinBuildHeight()));
+        int pending = pendingSpawns.add(id, x, y, z, vx, vy, vz, damage, -1, seed);
+        pendingSpawns.setAge(pending, age);
+        muzzleTracer(x, y, z, vx, vy, vz, age);
+        return true;
+    }
+
+    /**
+     * Sends clients a tracer over the first {@code ticks} ticks of a shot, for the part of its
+     * path a hitscan window resolved without a bullet.
+     */
+    public void muzzleTracer(double x, double y, double z, double vx, double vy, double vz, int ticks) {
+        if (ticks > 0) {
+            int pending = pendingSpawns.add(nextId++, x, y, z, (float) vx, (float) vy, (float) vz,
+                    0.0f, -1, level.random.nextInt());
+            pendingSpawns.setExpiry(pending, ticks);
+        }
+    }
+
+    /**
+     * Resolves the first {@link Config#hitscanTicks} ticks of a shot on the spot, applying
+     * a hit and sending clients only a tracer when it ends within them.
+     *
+     * @return the age to spawn the bullet at, past the window, or -1 if the shot is done
+     */
+    public int hitscan(double x, double y, double z, double velocityX, double velocityY, double velocityZ,
+                       float damage, @Nullable Entity owner) {
+        double vx = (float) velocityX;
+        double vy = (float) velocityY;
+        double vz = (float) velocityZ;
+        int ownerId = owner != null ? owner.getId() : -1;
+        int expiry = Ballistics.ticksUntilBelow(y, vy, level.getMinBuildHeight());
+        // Shots fire during the tick, after chunks may have changed since the last answer.
+        lastTickingChunk = Long.MIN_VALUE;
+        int window = Math.min(Config.hitscanTicks, lifetime);
+
+        for (int age = 0; age < window; age++) {
+            if (age >= expiry) {
+                return resolveHitscan(x, y, z, vx, vy, vz, age, BulletMetrics.Despawn.OUT_OF_WORLD);
+            }
+            if (!isTicking(Ballistics.horizontal(x, vx, age + 1), Ballistics.horizontal(z, vz, age + 1))) {
+                return resolveHitscan(x, y, z, vx, vy, vz, age, BulletMetrics.Despawn.UNLOADED);
+            }
+
+            metrics.recordStep();
+            if (coasting(Ballistics.vertical(y, vy, age), Ballistics.vertical(y, vy, age + 1))) {
+                continue;
+            }
+            sweep.setTimed(false);
+            sweep.run(blocks, broadPhase, false, x, y, z, vx, vy, vz, age, null, ownerId);
+            Entity target = sweep.target();
+            if (target != null) {
+                hits.add(target, damage, ownerId);
+                return resolveHitscan(x, y, z, vx, vy, vz, age + 1, BulletMetrics.Despawn.ENTITY_HIT);
+            }
+            if (sweep.blockFraction() != Intersections.MISS) {
+                return resolveHitscan(x, y, z, vx, vy, vz, age + 1, BulletMetrics.Despawn.BLOCK_HIT);
+            }
+        }
+        return window;
+    }
+
+    // Counts a shot that ended inside the hitscan window and sends its tracer.
+    private int resolveHitscan(double x, double y, double z, double vx, double vy, double vz,
+                               int ticks, BulletMetrics.Despawn reason) {
+        metrics.recordSpawn();
+        metrics.recordDespawn(reason);
+        muzzleTracer(x, y, z, vx, vy, vz, ticks);
+        return -1;
+    }
+
+    /**
+     * Puts back a bullet from the {@link BulletRegionStore} at the given step of its
+     * trajectory and age, with the ticks it had not swept yet. Ownerless, since entity ids
+     * do not survive an unload.
+     */
+    void resume(double x, double y, double z, double velocityX, double velocityY, double velocityZ,
+                int step, int age, int lag, float damage, int seed) {
+        // Entities save their last anchor, step ticks back rather than age; move the origin back
+        // along the same arc so the bullet is where it was at its own age. Velocities are rounded
+        // as in spawn, since that is what clients receive.
+        double positionX = Ballistics.horizontal(x, velocityX, step);
+        double positionY = Ballistics.vertical(y, velocityY, step);
+        double positionZ = Ballistics.horizontal(z, velocityZ, step);
+        double vx = (float) (Ballistics.horizontalVelocity(velocityX, step) / Ballistics.dragPower(age));
+        double vy = (float) (Ballistics.verticalVelocity(velocityY, step) + Ballistics.GRAVITY * age);
+        double vz = (float) (Ballistics.horizontalVelocity(velocityZ, step) / Ballistics.dragPower(age));
+        double originX = positionX - Ballistics.horizontal(0.0, vx, age);
+        double originY = positionY - Ballistics.vertical(0.0, vy, age);
+        double originZ = positionZ - Ballistics.horizontal(0.0, vz, age);
+        if (!budget.tryAcquire(originX, originZ)) {
+            metrics.recordRejectedSpawn();
+            return;
+        }
+
+        int id = nextId++;
+        int index = store.add(id, originX, originY, originZ, vx, vy, vz, damage, -1, seed);
+        store.setAge(index, age);
+        store.setLag(index, lag);
+        store.setExpiry(index, age + Ballistics.ticksUntilBelow(positionY,
+                Ballistics.verticalVelocity(vy, age), level.getMinBuildHeight()));
+        int pending = pendingSpawns.add(id, originX, originY, originZ, vx, vy, vz, damage, -1, seed);
+        pendingSpawns.setAge(pending, age);
+    }
+
+    /**
+     * Grows the store ahead of a burst of {@link #spawn} calls.
+     */
+    public void reserve(int additional) {
+        store.ensureCapacity(store.size() + additional);
+        pendingSpawns.ensureCapacity(pendingSpawns.size() + additional);
+    }
+
+    public void tick() {
+        budget.evaluate(level);
+        gameTime = level.getGameTime();
+        lifetime = budget.lifetime();
+        // Read by workers, so settle it on this thread first.
+        skyClear();
+        lastTickingChunk = Long.MIN_VALUE;
+        // Hitscan shots may have filled the grid before entities moved this tick.
+        broadPhase.invalidate();
+        // Evict before preparing so no snapshot a worker needs is dropped mid-tick.
+        blocks.trim();
+        regions().thaw(this);
+
+        int count = store.size();
+        ensureResultCapacity(count);
+
+        if (Config.parallelStepping && count >= Config.parallelThreshold) {
+            // Main thread: snapshot the blocks and entities every bullet can reach this tick.
+            for (int i = 0; i < count; i++) {
+                prepare(i);
+            }
+            // Workers: integrate and collide against the snapshots only.
+            BulletWorkers.pool().invoke(new StepTask(0, count));
+        } else {
+            for (int i = 0; i < count; i++) {
+                compute(i, blocks, sweep, false);
+            }
+        }
+
+        // Apply outcomes in a fixed order so the result does not depend on thread scheduling.
+        for (int i = count - 1; i >= 0; i--) {
+            if (!commit(i)) {
+                budget.release(store.x(i), store.z(i));
+                store.remove(i);
+            }
+        }
+        Arrays.fill(targets, 0, count, null);
+        // Bullet entities ticked earlier in the tick, so their hits are in here too.
+        hits.apply();
+
+        flush();
+        fireEvents.flush(level);
+        metrics.endTick();
+    }
+
+    private void retire(int i) {
+        pendingDespawns.add(store.id(i));
+    }
+
+    private void flush() {
+        if (pendingSpawns.size() == 0 && pendingDespawns.isEmpty() && carried.isEmpty()) {
+            return;
+        }
+
+        int spawnCount = pendingSpawns.size();
+        if (tiers.length < spawnCount) {
+            tiers = new byte[Math.max(spawnCount, tiers.length * 2)];
+        }
+        int[] despawns = pendingDespawns.toIntArray();
+        retired.clear();
+        retired.addAll(pendingDespawns);
+        if (!carried.isEmpty()) {
+            // Players who left or respawned take what was held back for them along.
+            carried.keySet().removeIf(player -> {
+                int p = interest.indexOf(player);
+                return p < 0 || interest.player(p) != player;
+            });
+        }
+
+        // Despawns are a few bytes each and go to everyone; clients skip ids they never got.
+        for (int p = 0; p < interest.players(); p++) {
+            ServerPlayer player = interest.player(p);
+            BulletStore waiting = carried.get(player);
+            carriedSelected.clear();
+            if (waiting != null) {
+                // Held back from earlier ticks: a tick older now, and first in line for the budget.
+                for (int i = waiting.size() - 1; i >= 0; i--) {
+                    int age = waiting.age(i) + 1;
+                    if (retired.contains(waiting.id(i)) || age > lifetime || age >= waiting.expiry(i)) {
+                        waiting.remove(i);
+                    } else {
+                        waiting.setAge(i, age);
+                    }
+                }
+                for (int i = 0; i < waiting.size() && interest.charge(p, BulletInterest.FULL); i++) {
+                    carriedSelected.add(i);
+                }
+            }
+
+            for (int i = 0; i < spawnCount; i++) {
+                int age = pendingSpawns.age(i);
+                tiers[i] = interest.classify(p,
+                        Ballistics.horizontal(pendingSpawns.x(i), pendingSpawns.vx(i), age),
+                        Ballistics.vertical(pendingSpawns.y(i), pendingSpawns.vy(i), age),
+                        Ballistics.horizontal(pendingSpawns.z(i), pendingSpawns.vz(i), age),
+                        Ballistics.horizontalVelocity(pendingSpawns.vx(i), age),
+                        Ballistics.verticalVelocity(pendingSpawns.vy(i), age),
+                        Ballistics.horizontalVelocity(pendingSpawns.vz(i), age));
+            }
+
+            // Relevant bullets first, then peripheral ones while the player's budget lasts.
+            selected.clear();
+            rejected.clear();
+            for (int i = 0; i < spawnCount; i++) {
+                if (tiers[i] == BulletInterest.FULL) {
+                    if (interest.charge(p, BulletInterest.FULL)) {
+                        selected.add(i);
+                    } else if (!retired.contains(pendingSpawns.id(i))) {
+                        rejected.add(i);
+                    }
+                }
+            }
+            for (int i = 0; i < spawnCount; i++) {
+                if (tiers[i] == BulletInterest.PERIPHERAL && interest.charge(p, BulletInterest.PERIPHERAL)) {
+                    selected.add(i);
+                }
+            }
+
+            if (!carriedSelected.isEmpty() || !selected.isEmpty() || despawns.length > 0) {
+                ModNetwork.CHANNEL.send(PacketDistributor.PLAYER.with(() -> player),
+                        BulletBatchPacket.of(level.getGameTime(), waiting, carriedSelected, pendingSpawns, selected, despawns));
+            }
+
+            // Sent ones are the first few, so removing from the back keeps the rest in place.
+            for (int n = carriedSelected.size() - 1; n >= 0; n--) {
+                waiting.remove(carriedSelected.getInt(n));
+            }
+            if (!rejected.isEmpty()) {
+                if (waiting == null) {
+                    waiting = new BulletStore();
+                    carried.put(player, waiting);
+                }
+                for (int n = 0; n < rejected.size(); n++) {
+                    waiting.add(pendingSpawns, rejected.getInt(n));
+                }
+            }
+            if (waiting != null && waiting.size() == 0) {
+                carried.remove(player);
+            }
+        }
+
+        pendingSpawns.clear();
+        pendingDespawns.clear();
+    }
+
+    private void prepare(int i) {
+        int age = store.age(i);
+        if (age >= store.expiry(i) || age < store.coastUntil(i) || !BulletInterest.due(gameTime, store.id(i), store.interval(i))) {
+            return;
+        }
+        int from = age - store.lag(i);
+        double x = Ballistics.horizontal(store.x(i), store.vx(i), from);
+        double y = Ballistics.vertical(store.y(i), store.vy(i), from);
+        double z = Ballistics.horizontal(store.z(i), store.vz(i), from);
+        double nextX = Ballistics.horizontal(store.x(i), store.vx(i), age + 1);
+        double nextY = Ballistics.vertical(store.y(i), store.vy(i), age + 1);
+        double nextZ = Ballistics.horizontal(store.z(i), store.vz(i), age + 1);
+        if (coasting(y, nextY)) {
+            return;
+        }
+
+        // Sub-steps follow the curve, which stays within the chord error of this box.
+        double error = Ballistics.chordError(store.vx(i), store.vy(i), store.vz(i), from, age + 1 - from);
+        double minX = Math.min(x, nextX) - error;
+        double minY = Math.min(y, nextY) - error;
+        double minZ = Math.min(z, nextZ) - error;
+        double maxX = Math.max(x, nextX) + error;
+        double maxY = Math.max(y, nextY) + error;
+        double maxZ = Math.max(z, nextZ) + error;
+
+        blocks.prepare(minX, minY, minZ, maxX, maxY, maxZ);
+        broadPhase.prepare(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+
+    // Works out what happens to bullet i this tick without changing the store or the world.
+    private void compute(int i, VoxelSource source, TrajectorySweep sweep, boolean prepared) {
+        int age = store.age(i);
+        if (age + 1 > lifetime) {
+            outcomes[i] = EXPIRED;
+            return;
+        }
+        if (age >= store.expiry(i)) {
+            outcomes[i] = OUT_OF_WORLD;
+            return;
+        }
+        if (age < store.coastUntil(i)) {
+            outcomes[i] = FLYING;
+            return;
+        }
+        if (!BulletInterest.due(gameTime, store.id(i), store.interval(i))) {
+            outcomes[i] = DEFERRED;
+            return;
+        }
+        // Sweep everything flown since the last sweep in one go.
+        int from = age - store.lag(i);
+        double y = Ballistics.vertical(store.y(i), store.vy(i), from);
+        double nextY = Ballistics.vertical(store.y(i), store.vy(i), age + 1);
+        if (coasting(y, nextY)) {
+            outcomes[i] = FLYING;
+            return;
+        }
+
+        // Worker threads must not touch the metrics, so only the sequential path is timed.
+        boolean timed = !prepared && BulletMetrics.timed(store.id(i));
+        long start = timed ? System.nanoTime() : 0L;
+
+        sweep.setTimed(timed);
+        sweep.run(source, broadPhase, prepared, store.x(i), store.y(i), store.z(i),
+                store.vx(i), store.vy(i), store.vz(i), from, age + 1 - from, null, store.owner(i));
+
+        if (timed) {
+            long total = System.nanoTime() - start;
+            metrics.recordTiming(total - sweep.clipNanos() - sweep.entityNanos(), sweep.clipNanos(), sweep.entityNanos());
+        }
+
+        Entity target = sweep.target();
+        if (target != null) {
+            outcomes[i] = ENTITY_HIT;
+            targets[i] = target;
+        } else {
+            outcomes[i] = sweep.blockFraction() != Intersections.MISS ? BLOCK_HIT : FLYING;
+        }
+        blockFractions[i] = sweep.blockFraction();
+    }
+
+    private boolean commit(int i) {
+        if (outcomes[i] == UNPREPARED) {
+            compute(i, blocks, sweep, false);
+        }
+
+        int age = store.age(i);
+        if (outcomes[i] == EXPIRED) {
+            if (sweepDeferred(i, age - store.lag(i), store.lag(i))) {
+                return false;
+            }
+            metrics.recordDespawn(BulletMetrics.Despawn.LIFETIME);
+            // Clients only expire bullets at the full lifetime by themselves.
+            if (lifetime < BulletEntity.MAX_LIFETIME_TICKS) {
+                retire(i);
+            }
+            return false;
+        }
+
+        if (outcomes[i] == OUT_OF_WORLD) {
+            if (sweepDeferred(i, age - store.lag(i), store.lag(i))) {
+                return false;
+            }
+            metrics.recordDespawn(BulletMetrics.Despawn.OUT_OF_WORLD);
+            retire(i);
+            return false;
+        }
+
+        if (!isTicking(Ballistics.horizontal(store.x(i), store.vx(i), age),
+                Ballistics.horizontal(store.z(i), store.vz(i), age))) {
+            // The chunk stopped ticking under the bullet: keep it, unswept ticks included, for when it comes back.
+            if (!regions().freeze(store.x(i), store.y(i), store.z(i), store.vx(i), store.vy(i), store.vz(i),
+                    age, age, store.lag(i), store.damage(i), store.seed(i))) {
+                metrics.recordDespawn(BulletMetrics.Despawn.UNLOADED);
+            }
+            retire(i);
+            return false;
+        }
+
+        boolean deferred = outcomes[i] == DEFERRED;
+        if (!deferred) {
+            metrics.recordStep();
+        }
+        switch (outcomes[i]) {
+            case ENTITY_HIT:
+                Entity target = targets[i];
+                // An earlier tick may already have killed it; hits this tick land together at its end.
+                if (target.isAlive()) {
+                    hits.add(target, store.damage(i), store.owner(i));
+                    metrics.recordDespawn(BulletMetrics.Despawn.ENTITY_HIT);
+                    retire(i);
+                    return false;
+                }
+                if (blockFractions[i] != Intersections.MISS) {
+                    metrics.recordDespawn(BulletMetrics.Despawn.BLOCK_HIT);
+                    retire(i);
+                    return false;
+                }
+                break;
+            case BLOCK_HIT:
+                metrics.recordDespawn(BulletMetrics.Despawn.BLOCK_HIT);
+                retire(i);
+                return false;
+            default:
+                break;
+        }
+
+        age++;
+        if (!isTicking(Ballistics.horizontal(store.x(i), store.vx(i), age),
+                Ballistics.horizontal(store.z(i), store.vz(i), age))) {
+            // A swept bullet has covered this tick already; a deferred one has not.
+            if (deferred && sweepDeferred(i, age - 1 - store.lag(i), store.lag(i) + 1)) {
+                return false;
+            }
+            metrics.recordDespawn(BulletMetrics.Despawn.UNLOADED);
+            retire(i);
+            return false;
+        }
+
+        store.setAge(i, age);
+        if (deferred) {
+            store.setLag(i, store.lag(i) + 1);
+        } else {
+            store.setLag(i, 0);
+            store.setInterval(i, interest.updateInterval(Ballistics.horizontal(store.x(i), store.vx(i), age),
+                    Ballistics.vertical(store.y(i), store.vy(i), age), Ballistics.horizontal(store.z(i), store.vz(i), age)));
+            if (age >= store.coastUntil(i) && BulletInterest.due(gameTime, store.id(i), COAST_CHECK_INTERVAL)) {
+                store.setCoastUntil(i, coastEnd(i, age));
+            }
+        }
+        return true;
+    }
+
+    // The age a bullet can fly to without sweeps: where its arc ends within the horizon, by
+    // lifetime, the world floor or the ticking edge, if every tick until then crosses only
+    // empty sections away from entities. Otherwise 0. Commit still retires it at that end.
+    private int coastEnd(int i, int age) {
+        int limit = age + COAST_HORIZON;
+        int end = Math.min(lifetime, store.expiry(i));
+        for (int t = age + 1; t <= Math.min(end, limit); t++) {
+            if (!isTicking(Ballistics.horizontal(store.x(i), store.vx(i), t),
+                    Ballistics.horizontal(store.z(i), store.vz(i), t))) {
+                end = t;
+                break;
+            }
+        }
+        if (end > limit) {
+            return 0;
+        }
+
+        double x = Ballistics.horizontal(store.x(i), store.vx(i), age);
+        double y = Ballistics.vertical(store.y(i), store.vy(i), age);
+        double z = Ballistics.horizontal(store.z(i), store.vz(i), age);
+        for (int t = age; t < end; t++) {
+            double nextX = Ballistics.horizontal(store.x(i), store.vx(i), t + 1);
+            double nextY = Ballistics.vertical(store.y(i), store.vy(i), t + 1);
+            double nextZ = Ballistics.horizontal(store.z(i), store.vz(i), t + 1);
+            if (!coasting(y, nextY)) {
+                double error = Ballistics.chordError(store.vx(i), store.vy(i), store.vz(i), t, 1);
+                double minX = Math.min(x, nextX) - error;
+                double minY = Math.min(y, nextY) - error;
+                double minZ = Math.min(z, nextZ) - error;
+                double maxX = Math.max(x, nextX) + error;
+                double maxY = Math.max(y, nextY) + error;
+                double maxZ = Math.max(z, nextZ) + error;
+                if (!blocks.regionEmpty(Mth.floor(minX), Mth.floor(minY), Mth.floor(minZ),
+                        Mth.floor(maxX), Mth.floor(maxY), Mth.floor(maxZ))) {
+                    return 0;
+                }
+                double reach = ENTITY_REACH_PER_TICK * (t + 1 - age);
+                if (broadPhase.anyNear(minX - reach, minY - reach, minZ - reach, maxX + reach, maxY + reach, maxZ + reach)) {
+                    return 0;
+                }
+            }
+            x = nextX;
+            y = nextY;
+            z = nextZ;
+        }
+        return end;
+    }
+
+    // Sweeps the ticks a bullet deferred before it is retired without another sweep, so no
+    // part of its path goes unchecked. Applies and counts the hit, if any.
+    private boolean sweepDeferred(int i, int from, int span) {
+        if (span <= 0 || coasting(Ballistics.vertical(store.y(i), store.vy(i), from),
+                Ballistics.vertical(store.y(i), store.vy(i), from + span))) {
+            return false;
+        }
+
+        sweep.setTimed(false);
+        sweep.run(blocks, broadPhase, false, store.x(i), store.y(i), store.z(i),
+                store.vx(i), store.vy(i), store.vz(i), from, span, null, store.owner(i));
+        Entity target = sweep.target();
+        if (target != null && target.isAlive()) {
+            hits.add(target, store.damage(i), store.owner(i));
+            metrics.recordDespawn(BulletMetrics.Despawn.ENTITY_HIT);
+        } else if (sweep.blockFraction() != Intersections.MISS) {
+            metrics.recordDespawn(BulletMetrics.Despawn.BLOCK_HIT);
+        } else {
+            return false;
+        }
+        retire(i);
+        return true;
+    }
+
+    private void ensureResultCapacity(int capacity) {
+        if (outcomes.length < capacity) {
+            int newCapacity = Math.max(capacity, outcomes.length * 2);
+            outcomes = new byte[newCapacity];
+            blockFractions = new double[newCapacity];
+            targets = new Entity[newCapacity];
+        }
+    }
+
+    private class StepTask extends RecursiveAction {
+
+        private static final int SPLIT_THRESHOLD = 256;
+
+        private final int start;
+        private final int end;
+
+        StepTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= SPLIT_THRESHOLD) {
+                BlockRaycaster.PreparedView view = blocks.preparedView();
+                TrajectorySweep sweep = new TrajectorySweep();
+                for (int i = start; i < end; i++) {
+                    view.reset();
+                    BulletManager.this.compute(i, view, sweep, true);
+                    if (view.incomplete()) {
+                        outcomes[i] = UNPREPARED;
+                        targets[i] = null;
+                    }
+                }
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+            invokeAll(new StepTask(start, middle), new StepTask(middle, end));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.testgunmod.projectile;
+
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Running counters for one level's bullets, cheap enough to leave on. Phase
+ * timings are only taken for one in {@link #TIMING_SAMPLE_RATE} bullets and
+ * reported as an average per bullet step.
+ */
+public class BulletMetrics {
+
+    public enum Despawn {
+        LIFETIME, BLOCK_HIT, ENTITY_HIT, OUT_OF_WORLD, UNLOADED
+    }
+
+    public enum Phase {
+        INTEGRATION, BLOCK_CLIP, ENTITY_QUERY
+    }
+
+    public static final int TIMING_SAMPLE_RATE = 16;
+
+    private static final int MAX_TRACKED_TURRETS = 65536;
+
+    private long spawned;
+    private long rejected;
+    private long steps;
+    private long ticks;
+    private final long[] despawns = new long[Despawn.values().length];
+    private final long[] phaseNanos = new long[Phase.values().length];
+    private long timedSteps;
+    private final Long2IntOpenHashMap turretShots = new Long2IntOpenHashMap();
+    private long startedAt = System.nanoTime();
+
+    public static boolean timed(int id) {
+        return (id & (TIMING_SAMPLE_RATE - 1)) == 0;
+    }
+
+    public void recordSpawn() {
+        spawned++;
+    }
+
+    public void recordRejectedSpawn() {
+        rejected++;
+    }
+
+    public void recordTurretShot(long pos) {
+        if (turretShots.size() < MAX_TRACKED_TURRETS || turretShots.containsKey(pos)) {
+            turretShots.addTo(pos, 1);
+        }
+    }
+
+    public void recordStep() {
+        steps++;
+    }
+
+    public void recordDespawn(Despawn cause) {
+        despawns[cause.ordinal()]++;
+    }
+
+    public void recordTiming(long integrationNanos, long clipNanos, long entityNanos) {
+        phaseNanos[Phase.INTEGRATION.ordinal()] += integrationNanos;
+        phaseNanos[Phase.BLOCK_CLIP.ordinal()] += clipNanos;
+        phaseNanos[Phase.ENTITY_QUERY.ordinal()] += entityNanos;
+        timedSteps++;
+    }
+
+    void endTick() {
+        ticks++;
+    }
+
+    public void reset() {
+        spawned = 0;
+        rejected = 0;
+        steps = 0;
+        ticks = 0;
+        timedSteps = 0;
+        Arrays.fill(despawns, 0);
+        Arrays.fill(phaseNanos, 0);
+        turretShots.clear();
+        startedAt = System.nanoTime();
+    }
+
+    public long spawned() {
+        return spawned;
+    }
+
+    /**
+     * Shots dropped because the {@link BulletBudget} was full.
+     */
+    public long rejected() {
+        return rejected;
+    }
+
+    public long steps() {
+        return steps;
+    }
+
+    public long ticks() {
+        return ticks;
+    }
+
+    public long despawns(Despawn cause) {
+        return despawns[cause.ordinal()];
+    }
+
+    public double secondsSinceReset() {
+        return (System.nanoTime() - startedAt) / 1.0e9;
+    }
+
+    public double spawnsPerSecond() {
+        double seconds = secondsSinceReset();
+        return seconds > 0 ? spawned / seconds : 0.0;
+    }
+
+    /**
+     * Average nanoseconds one bullet step spends in the phase, over the sampled steps.
+     */
+    public double nanosPerStep(Phase phase) {
+        return timedSteps > 0 ? (double) phaseNanos[phase.ordinal()] / timedSteps : 0.0;
+    }
+
+    /**
+     * Estimated milliseconds per tick spent in the phase across all bullets.
+     */
+    public double millisPerTick(Phase phase) {
+        return ticks > 0 ? nanosPerStep(phase) * steps / ticks / 1.0e6 : 0.0;
+    }
+
+    /**
+     * Turret positions ordered by shots fired since the last reset, most first.
+     */
+    public List<Long2IntMap.Entry> topTurrets(int limit) {
+        List<Long2IntMap.Entry> entries = new ArrayList<>(turretShots.size());
+        ObjectIterator<Long2IntMap.Entry> iterator = turretShots.long2IntEntrySet().iterator();
+        while (iterator.hasNext()) {
+            entries.add(iterator.next());
+        }
+        entries.sort((a, b) -> Integer.compare(b.getIntValue(), a.getIntValue()));
+        return entries.subList(0, Math.min(limit, entries.size()));
+    }
+}
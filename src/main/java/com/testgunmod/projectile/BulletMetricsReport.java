@@ -0,0 +1,130 @@
+package com.testgunmod.projectile;
+
+import com.mojang.logging.LogUtils;
+import com.testgunmod.entity.BulletEntity;
+import com.testgunmod.entity.ModEntityTypes;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import org.slf4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * On-demand views over a level's bullets for the {@code /bullets} command and
+ * the periodic CSV export. Nothing here runs on the per-bullet hot path.
+ */
+public class BulletMetricsReport {
+
+    private static final Logger LOGGER = LogUtils.getLogger();
+
+    public static final String CSV_FILE = "testgunmod-metrics.csv";
+
+    // New columns only ever go at the end, so readers that index columns keep working.
+    private static final String CSV_HEADER = "timestamp,dimension,gameTime,seconds,virtualAlive,entitiesAlive,"
+            + "spawnsPerSecond,lifetimeDespawns,blockHits,entityHits,"
+            + "integrationNsPerStep,clipNsPerStep,entityQueryNsPerStep,"
+            + "integrationMsPerTick,clipMsPerTick,entityQueryMsPerTick,outOfWorldDespawns,unloadedDespawns";
+
+    private BulletMetricsReport() {
+    }
+
+    public static int entityBullets(ServerLevel level) {
+        return level.getEntities(ModEntityTypes.BULLET.get(), bullet -> true).size();
+    }
+
+    /**
+     * Live bullet count per chunk, virtual and entity bullets together, most first.
+     */
+    public static List<Long2IntMap.Entry> topChunks(ServerLevel level, BulletManager manager, int limit) {
+        Long2IntOpenHashMap counts = new Long2IntOpenHashMap();
+
+        BulletStore store = manager.store();
+        for (int i = 0; i < store.size(); i++) {
+            int age = store.age(i);
+            double x = Ballistics.horizontal(store.x(i), store.vx(i), age);
+            double z = Ballistics.horizontal(store.z(i), store.vz(i), age);
+            counts.addTo(ChunkPos.asLong((int) Math.floor(x) >> 4, (int) Math.floor(z) >> 4), 1);
+        }
+        for (BulletEntity bullet : level.getEntities(ModEntityTypes.BULLET.get(), bullet -> true)) {
+            counts.addTo(bullet.chunkPosition().toLong(), 1);
+        }
+
+        List<Long2IntMap.Entry> entries = new ArrayList<>(counts.long2IntEntrySet());
+        entries.sort((a, b) -> Integer.compare(b.getIntValue(), a.getIntValue()));
+        return entries.subList(0, Math.min(limit, entries.size()));
+    }
+
+    /**
+     * Appends one row for the level to {@link #CSV_FILE} in the server directory
+     * and logs a one-line summary.
+     */
+    public static void appendCsv(ServerLevel level, BulletManager manager) {
+        BulletMetrics metrics = manager.metrics();
+        int virtualAlive = manager.store().size();
+        int entitiesAlive = entityBullets(level);
+
+        String row = String.format(Locale.ROOT, "%d,%s,%d,%.1f,%d,%d,%.1f,%d,%d,%d,%.1f,%.1f,%.1f,%.3f,%.3f,%.3f,%d,%d",
+                System.currentTimeMillis(), level.dimension().location(), level.getGameTime(),
+                metrics.secondsSinceReset(), virtualAlive, entitiesAlive, metrics.spawnsPerSecond(),
+                metrics.despawns(BulletMetrics.Despawn.LIFETIME),
+                metrics.despawns(BulletMetrics.Despawn.BLOCK_HIT),
+                metrics.despawns(BulletMetrics.Despawn.ENTITY_HIT),
+                metrics.nanosPerStep(BulletMetrics.Phase.INTEGRATION),
+                metrics.nanosPerStep(BulletMetrics.Phase.BLOCK_CLIP),
+                metrics.nanosPerStep(BulletMetrics.Phase.ENTITY_QUERY),
+                metrics.millisPerTick(BulletMetrics.Phase.INTEGRATION),
+                metrics.millisPerTick(BulletMetrics.Phase.BLOCK_CLIP),
+                metrics.millisPerTick(BulletMetrics.Phase.ENTITY_QUERY),
+                metrics.despawns(BulletMetrics.Despawn.OUT_OF_WORLD),
+                metrics.despawns(BulletMetrics.Despawn.UNLOADED));
+
+        Path path = level.getServer().getServerDirectory().toPath().resolve(CSV_FILE);
+        try {
+            rotateIfOutdated(path);
+            boolean newFile = !Files.exists(path);
+            try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                if (newFile) {
+                    writer.write(CSV_HEADER);
+                    writer.write('\n');
+                }
+                writer.write(row);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            LOGGER.error("Failed to write bullet metrics to {}", path, e);
+        }
+
+        LOGGER.info("Bullets in {}: {} virtual, {} entities, {} spawns/s",
+                level.dimension().location(), virtualAlive, entitiesAlive,
+                String.format(Locale.ROOT, "%.1f", metrics.spawnsPerSecond()));
+    }
+
+    // A file written with an older header would get rows with more columns than it names;
+    // keep it under its own name and start a new one instead.
+    private static void rotateIfOutdated(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        String header;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            header = reader.readLine();
+        }
+        if (header != null && !header.equals(CSV_HEADER)) {
+            Path old = path.resolveSibling(CSV_FILE.replace(".csv", "-" + System.currentTimeMillis() + ".csv"));
+            Files.move(path, old);
+            LOGGER.info("Bullet metrics columns changed; moved the old export to {}", old);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.testgunmod.projectile;
+
+import com.testgunmod.Config;
+import com.testgunmod.TestGunMod;
+import com.testgunmod.entity.BulletEntity;
+import com.testgunmod.entity.ModEntityTypes;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.Mth;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.saveddata.SavedData;
+
+/**
+ * Bullets in flight whose chunk stopped ticking, kept until it ticks again.
+ * <p>
+ * Each bullet is packed into {@link #STRIDE} longs (launch state, trajectory step,
+ * age, unswept ticks, damage and seed) and bullets are grouped by chunk, so freezing, saving and
+ * resuming a whole battle copies primitive arrays instead of building a tag per
+ * bullet. On save the bullets still flying in loaded chunks are written too, so a
+ * restart resumes them where they were.
+ */
+public class BulletRegionStore extends SavedData {
+
+    private static final String DATA_NAME = TestGunMod.MOD_ID + "_bullets";
+
+    // originX, originY, originZ, velocityX, velocityY, velocityZ as raw double bits,
+    // then step << 32 | lag << 24 | age, then damage bits << 32 | seed. Ages stay far
+    // below 2^24 and lag below 2^8, and older saves read back with no lag.
+    private static final int STRIDE = 8;
+    private static final int AGE_BITS = 24;
+    private static final long AGE_MASK = (1L << AGE_BITS) - 1;
+
+    // Chunks are written in 32x32 groups, matching region files.
+    private static final int REGION_SHIFT = 5;
+
+    private static final int THAW_INTERVAL = 20;
+
+    private final ServerLevel level;
+    private final Long2ObjectOpenHashMap<Frozen> frozen = new Long2ObjectOpenHashMap<>();
+    private int frozenCount;
+    // Whether the last save wrote live bullets, which the next one then has to overwrite.
+    private boolean savedLive;
+
+    private final LongArrayList thawed = new LongArrayList();
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+
+    private BulletRegionStore(ServerLevel level) {
+        this.level = level;
+    }
+
+    public static BulletRegionStore get(ServerLevel level) {
+        return level.getDataStorage().computeIfAbsent(tag -> load(level, tag), () -> new BulletRegionStore(level), DATA_NAME);
+    }
+
+    private static BulletRegionStore load(ServerLevel level, CompoundTag tag) {
+        BulletRegionStore store = new BulletRegionStore(level);
+        ListTag regions = tag.getList("Regions", Tag.TAG_COMPOUND);
+        for (int r = 0; r < regions.size(); r++) {
+            CompoundTag region = regions.getCompound(r);
+            long[] chunks = region.getLongArray("Chunks");
+            long[] bullets = region.getLongArray("Bullets");
+            int offset = 0;
+            for (int c = 0; c + 1 < chunks.length; c += 2) {
+                int longs = (int) chunks[c + 1] * STRIDE;
+                if (offset + longs > bullets.length) {
+                    break;
+                }
+                store.chunk(chunks[c]).append(bullets, offset, longs);
+                store.frozenCount += (int) chunks[c + 1];
+                offset += longs;
+            }
+        }
+        return store;
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag tag) {
+        Long2ObjectOpenHashMap<Frozen> live = new Long2ObjectOpenHashMap<>();
+        snapshotLive(live);
+        savedLive = !live.isEmpty();
+
+        Long2ObjectOpenHashMap<LongArrayList> regions = new Long2ObjectOpenHashMap<>();
+        addToRegions(regions, frozen);
+        addToRegions(regions, live);
+
+        ListTag list = new ListTag();
+        for (Long2ObjectMap.Entry<LongArrayList> entry : regions.long2ObjectEntrySet()) {
+            LongArrayList members = entry.getValue();
+            long[] index = new long[members.size() * 2];
+            int total = 0;
+            for (int c = 0; c < members.size(); c++) {
+                long key = members.getLong(c);
+                int count = size(frozen.get(key)) + size(live.get(key));
+                index[c * 2] = key;
+                index[c * 2 + 1] = count;
+                total += count * STRIDE;
+            }
+
+            long[] bullets = new long[total];
+            int offset = 0;
+            for (int c = 0; c < members.size(); c++) {
+                offset = copy(frozen.get(members.getLong(c)), bullets, offset);
+                offset = copy(live.get(members.getLong(c)), bullets, offset);
+            }
+
+            CompoundTag region = new CompoundTag();
+            region.putLong("Region", entry.getLongKey());
+            region.putLongArray("Chunks", index);
+            region.putLongArray("Bullets", bullets);
+            list.add(region);
+        }
+        tag.put("Regions", list);
+        return tag;
+    }
+
+    private static void addToRegions(Long2ObjectOpenHashMap<LongArrayList> regions, Long2ObjectOpenHashMap<Frozen> chunks) {
+        ObjectIterator<Long2ObjectMap.Entry<Frozen>> iterator = chunks.long2ObjectEntrySet().fastIterator();
+        while (iterator.hasNext()) {
+            long chunk = iterator.next().getLongKey();
+            long region = ChunkPos.asLong(ChunkPos.getX(chunk) >> REGION_SHIFT, ChunkPos.getZ(chunk) >> REGION_SHIFT);
+            LongArrayList members = regions.computeIfAbsent(region, key -> new LongArrayList());
+            // A chunk can have both frozen and live bullets; list it once.
+            if (!members.contains(chunk)) {
+                members.add(chunk);
+            }
+        }
+    }
+
+    private static int size(Frozen chunk) {
+        return chunk != null ? chunk.size : 0;
+    }
+
+    private static int copy(Frozen chunk, long[] target, int offset) {
+        if (chunk == null) {
+            return offset;
+        }
+        System.arraycopy(chunk.data, 0, target, offset, chunk.size * STRIDE);
+        return offset + chunk.size * STRIDE;
+    }
+
+    // Live bullets have to be written on every save, not only when something froze, and
+    // once more after the last of them is gone so a restart does not bring them back.
+    @Override
+    public boolean isDirty() {
+        if (super.isDirty() || savedLive) {
+            return true;
+        }
+        BulletManager manager = BulletManager.getIfPresent(level);
+        return manager != null && manager.budget().live() > 0;
+    }
+
+    public int size() {
+        return frozenCount;
+    }
+
+    /**
+     * Keeps a bullet until the chunk it is in ticks again. Dropped once the store holds
+     * {@link Config#maxBulletsPerLevel} bullets, so bullets abandoned far away cannot pile up.
+     */
+    public boolean freeze(double originX, double originY, double originZ,
+                          double velocityX, double velocityY, double velocityZ,
+                          int step, int age, int lag, float damage, int seed) {
+        if (frozenCount >= Config.maxBulletsPerLevel) {
+            return false;
+        }
+        double x = Ballistics.horizontal(originX, velocityX, step);
+        double z = Ballistics.horizontal(originZ, velocityZ, step);
+        chunk(ChunkPos.asLong(Mth.floor(x) >> 4, Mth.floor(z) >> 4))
+                .add(originX, originY, originZ, velocityX, velocityY, velocityZ, step, age, lag, damage, seed);
+        frozenCount++;
+        setDirty();
+        return true;
+    }
+
+    /**
+     * Resumes bullets whose chunk ticks again, as virtual bullets or entities depending
+     * on {@link Config#virtualProjectiles}. Checked once a second; the frozen chunks are
+     * few next to the bullets in them.
+     */
+    void thaw(BulletManager manager) {
+        if (frozen.isEmpty() || level.getGameTime() % THAW_INTERVAL != 0) {
+            return;
+        }
+
+        ObjectIterator<Long2ObjectMap.Entry<Frozen>> iterator = frozen.long2ObjectEntrySet().fastIterator();
+        while (iterator.hasNext()) {
+            long key = iterator.next().getLongKey();
+            if (level.isPositionEntityTicking(cursor.set(ChunkPos.getX(key) << 4, 0, ChunkPos.getZ(key) << 4))) {
+                thawed.add(key);
+            }
+        }
+
+        for (int c = 0; c < thawed.size(); c++) {
+            Frozen chunk = frozen.remove(thawed.getLong(c));
+            frozenCount -= chunk.size;
+            long[] data = chunk.data;
+            for (int i = 0; i < chunk.size * STRIDE; i += STRIDE) {
+                resume(manager, data, i);
+            }
+        }
+        if (!thawed.isEmpty()) {
+            thawed.clear();
+            setDirty();
+        }
+    }
+
+    private void resume(BulletManager manager, long[] data, int i) {
+        double originX = Double.longBitsToDouble(data[i]);
+        double originY = Double.longBitsToDouble(data[i + 1]);
+        double originZ = Double.longBitsToDouble(data[i + 2]);
+        double velocityX = Double.longBitsToDouble(data[i + 3]);
+        double velocityY = Double.longBitsToDouble(data[i + 4]);
+        double velocityZ = Double.longBitsToDouble(data[i + 5]);
+        int step = (int) (data[i + 6] >>> 32);
+        int lag = (int) (data[i + 6] >>> AGE_BITS) & 0xFF;
+        int age = (int) (data[i + 6] & AGE_MASK);
+        float damage = Float.intBitsToFloat((int) (data[i + 7] >>> 32));
+        int seed = (int) data[i + 7];
+
+        if (Config.virtualProjectiles) {
+            manager.resume(originX, originY, originZ, velocityX, velocityY, velocityZ, step, age, lag, damage, seed);
+            return;
+        }
+
+        BulletEntity bullet = BulletEntity.resume(ModEntityTypes.BULLET.get(), level,
+                originX, originY, originZ, velocityX, velocityY, velocityZ, step, age, lag, damage);
+        if (!manager.budget().tryAcquire(bullet.getX(), bullet.getZ())) {
+            manager.metrics().recordRejectedSpawn();
+            return;
+        }
+        bullet.markBudgeted();
+        if (!level.addFreshEntity(bullet)) {
+            manager.budget().release(bullet.getX(), bullet.getZ());
+        }
+    }
+
+    // Adds the bullets flying in loaded chunks to a save without freezing them.
+    private void snapshotLive(Long2ObjectOpenHashMap<Frozen> chunks) {
+        BulletManager manager = BulletManager.getIfPresent(level);
+        if (manager == null || manager.budget().live() == 0) {
+            return;
+        }
+
+        BulletStore store = manager.store();
+        for (int i = 0; i < store.size(); i++) {
+            int step = store.age(i);
+            double x = Ballistics.horizontal(store.x(i), store.vx(i), step);
+            double z = Ballistics.horizontal(store.z(i), store.vz(i), step);
+            chunks.computeIfAbsent(ChunkPos.asLong(Mth.floor(x) >> 4, Mth.floor(z) >> 4), key -> new Frozen())
+                    .add(store.x(i), store.y(i), store.z(i), store.vx(i), store.vy(i), store.vz(i),
+                            step, step, store.lag(i), store.damage(i), store.seed(i));
+        }
+
+        for (BulletEntity bullet : level.getEntities(ModEntityTypes.BULLET.get(), BulletEntity::isAlive)) {
+            chunks.computeIfAbsent(bullet.chunkPosition().toLong(), key -> new Frozen())
+                    .add(bullet.originX(), bullet.originY(), bullet.originZ(),
+                            bullet.launchVelocityX(), bullet.launchVelocityY(), bullet.launchVelocityZ(),
+                            bullet.step(), bullet.age(), bullet.lag(), bullet.damage(), 0);
+        }
+    }
+
+    private Frozen chunk(long key) {
+        return frozen.computeIfAbsent(key, k -> new Frozen());
+    }
+
+    // Packed bullets of one chunk.
+    private static final class Frozen {
+
+        private long[] data = new long[STRIDE * 4];
+        private int size;
+
+        void add(double originX, double originY, double originZ,
+                 double velocityX, double velocityY, double velocityZ,
+                 int step, int age, int lag, float damage, int seed) {
+            grow(STRIDE);
+            int i = size * STRIDE;
+            data[i] = Double.doubleToRawLongBits(originX);
+            data[i + 1] = Double.doubleToRawLongBits(originY);
+            data[i + 2] = Double.doubleToRawLongBits(originZ);
+            data[i + 3] = Double.doubleToRawLongBits(velocityX);
+            data[i + 4] = Double.doubleToRawLongBits(velocityY);
+            data[i + 5] = Double.doubleToRawLongBits(velocityZ);
+            data[i + 6] = (long) step << 32 | (long) (lag & 0xFF) << AGE_BITS | (age & AGE_MASK);
+            data[i + 7] = (long) Float.floatToRawIntBits(damage) << 32 | (seed & 0xFFFFFFFFL);
+            size++;
+        }
+
+        void append(long[] source, int offset, int longs) {
+            grow(longs);
+            System.arraycopy(source, offset, data, size * STRIDE, longs);
+            size += longs / STRIDE;
+        }
+
+        private void grow(int longs) {
+            int needed = size * STRIDE + longs;
+            if (needed > data.length) {
+                long[] grown = new long[Math.max(needed, data.length * 2)];
+                System.arraycopy(data, 0, grown, 0, size * STRIDE);
+                data = grown;
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.testgunmod.projectile;
+
+import com.testgunmod.Config;
+import com.testgunmod.entity.BulletEntity;
+import com.testgunmod.entity.ModEntityTypes;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.phys.Vec3;
+
+import javax.annotation.Nullable;
+
+public class BulletSpawner {
+
+    private BulletSpawner() {
+    }
+
+    public static void spawn(ServerLevel level, Vec3 position, Vec3 velocity, float damage, @Nullable Entity owner) {
+        spawn(level, position.x, position.y, position.z, velocity.x, velocity.y, velocity.z, damage, owner);
+    }
+
+    /**
+     * Fires a shot. The first {@link Config#hitscanTicks} ticks are resolved right away, and only
+     * shots that get past them become bullets, already that far into their flight on the server.
+     * Clients are still sent them from the muzzle.
+     */
+    public static void spawn(ServerLevel level, double x, double y, double z,
+                             double velocityX, double velocityY, double velocityZ,
+                             float damage, @Nullable Entity owner) {
+        BulletManager manager = BulletManager.get(level);
+        int age = 0;
+        if (Config.hitscanTicks > 0) {
+            age = manager.hitscan(x, y, z, velocityX, velocityY, velocityZ, damage, owner);
+            if (age < 0) {
+                return;
+            }
+        }
+
+        if (Config.virtualProjectiles) {
+            manager.spawn(x, y, z, velocityX, velocityY, velocityZ, damage, owner, age);
+            return;
+        }
+
+        spawnEntity(level, manager, x, y, z, velocityX, velocityY, velocityZ, damage, age);
+    }
+
+    private static void spawnEntity(ServerLevel level, BulletManager manager, double x, double y, double z,
+                                    double velocityX, double velocityY, double velocityZ, float damage, int age) {
+        BulletEntity bullet;
+        if (age == 0) {
+            bullet = new BulletEntity(ModEntityTypes.BULLET.get(), level, new Vec3(x, y, z),
+                    new Vec3(velocityX, velocityY, velocityZ), damage);
+        } else {
+            bullet = BulletEntity.resume(ModEntityTypes.BULLET.get(), level, x, y, z,
+                    velocityX, velocityY, velocityZ, age, age, 0, damage);
+        }
+
+        // Counted where the bullet enters the world, which is what markBudgeted records.
+        if (!manager.budget().tryAcquire(bullet.getX(), bullet.getZ())) {
+            manager.metrics().recordRejectedSpawn();
+            return;
+        }
+
+        bullet.markBudgeted();
+        if (level.addFreshEntity(bullet)) {
+            manager.metrics().recordSpawn();
+            // Clients see the shot leave the muzzle, like virtual bullets.
+            manager.muzzleTracer(x, y, z, velocityX, velocityY, velocityZ, age);
+        } else {
+            manager.budget().release(bullet.getX(), bullet.getZ());
+        }
+    }
+}
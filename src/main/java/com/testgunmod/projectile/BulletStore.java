@@ -0,0 +1,203 @@
+package com.testgunmod.projectile;
+
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays storage for bullets that are not backed by an entity.
+ * Position and velocity hold the spawn state; the state at the bullet's
+ * current age comes from {@link Ballistics}.
+ * Removal swaps the last bullet into the freed slot, so iterate from the end
+ * when removing during a pass.
+ */
+public class BulletStore {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private int size;
+
+    private int[] id = new int[INITIAL_CAPACITY];
+    private double[] x = new double[INITIAL_CAPACITY];
+    private double[] y = new double[INITIAL_CAPACITY];
+    private double[] z = new double[INITIAL_CAPACITY];
+    private double[] vx = new double[INITIAL_CAPACITY];
+    private double[] vy = new double[INITIAL_CAPACITY];
+    private double[] vz = new double[INITIAL_CAPACITY];
+    private float[] damage = new float[INITIAL_CAPACITY];
+    private int[] age = new int[INITIAL_CAPACITY];
+    private int[] owner = new int[INITIAL_CAPACITY];
+    private int[] seed = new int[INITIAL_CAPACITY];
+    // Age at which the bullet is known to be done, e.g. when it falls out of the world.
+    private int[] expiry = new int[INITIAL_CAPACITY];
+    // Ticks flown since collisions were last swept, and the power of two between sweeps.
+    private int[] lag = new int[INITIAL_CAPACITY];
+    private byte[] interval = new byte[INITIAL_CAPACITY];
+    // Age until which the path is known to hit nothing, so it is flown without sweeps.
+    private int[] coastUntil = new int[INITIAL_CAPACITY];
+
+    public int size() {
+        return size;
+    }
+
+    public int add(int id, double x, double y, double z, double vx, double vy, double vz,
+                   float damage, int owner, int seed) {
+        ensureCapacity(size + 1);
+        int i = size++;
+        this.id[i] = id;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.z[i] = z;
+        this.vx[i] = vx;
+        this.vy[i] = vy;
+        this.vz[i] = vz;
+        this.damage[i] = damage;
+        this.age[i] = 0;
+        this.owner[i] = owner;
+        this.seed[i] = seed;
+        this.expiry[i] = Integer.MAX_VALUE;
+        this.lag[i] = 0;
+        this.interval[i] = 1;
+        this.coastUntil[i] = 0;
+        return i;
+    }
+
+    /**
+     * Adds a copy of bullet i of another store, with its age, expiry and sweep state.
+     */
+    public int add(BulletStore source, int i) {
+        int index = add(source.id[i], source.x[i], source.y[i], source.z[i],
+                source.vx[i], source.vy[i], source.vz[i], source.damage[i], source.owner[i], source.seed[i]);
+        age[index] = source.age[i];
+        expiry[index] = source.expiry[i];
+        lag[index] = source.lag[i];
+        interval[index] = source.interval[i];
+        coastUntil[index] = source.coastUntil[i];
+        return index;
+    }
+
+    public void remove(int i) {
+        int last = --size;
+        if (i != last) {
+            id[i] = id[last];
+            x[i] = x[last];
+            y[i] = y[last];
+            z[i] = z[last];
+            vx[i] = vx[last];
+            vy[i] = vy[last];
+            vz[i] = vz[last];
+            damage[i] = damage[last];
+            age[i] = age[last];
+            owner[i] = owner[last];
+            seed[i] = seed[last];
+            expiry[i] = expiry[last];
+            lag[i] = lag[last];
+            interval[i] = interval[last];
+            coastUntil[i] = coastUntil[last];
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity <= x.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, x.length + (x.length >> 1));
+        id = Arrays.copyOf(id, newCapacity);
+        x = Arrays.copyOf(x, newCapacity);
+        y = Arrays.copyOf(y, newCapacity);
+        z = Arrays.copyOf(z, newCapacity);
+        vx = Arrays.copyOf(vx, newCapacity);
+        vy = Arrays.copyOf(vy, newCapacity);
+        vz = Arrays.copyOf(vz, newCapacity);
+        damage = Arrays.copyOf(damage, newCapacity);
+        age = Arrays.copyOf(age, newCapacity);
+        owner = Arrays.copyOf(owner, newCapacity);
+        seed = Arrays.copyOf(seed, newCapacity);
+        expiry = Arrays.copyOf(expiry, newCapacity);
+        lag = Arrays.copyOf(lag, newCapacity);
+        interval = Arrays.copyOf(interval, newCapacity);
+        coastUntil = Arrays.copyOf(coastUntil, newCapacity);
+    }
+
+    public int id(int i) {
+        return id[i];
+    }
+
+    public double x(int i) {
+        return x[i];
+    }
+
+    public double y(int i) {
+        return y[i];
+    }
+
+    public double z(int i) {
+        return z[i];
+    }
+
+    public double vx(int i) {
+        return vx[i];
+    }
+
+    public double vy(int i) {
+        return vy[i];
+    }
+
+    public double vz(int i) {
+        return vz[i];
+    }
+
+    public float damage(int i) {
+        return damage[i];
+    }
+
+    public int age(int i) {
+        return age[i];
+    }
+
+    public int owner(int i) {
+        return owner[i];
+    }
+
+    public int seed(int i) {
+        return seed[i];
+    }
+
+    public int expiry(int i) {
+        return expiry[i];
+    }
+
+    public void setExpiry(int i, int expiry) {
+        this.expiry[i] = expiry;
+    }
+
+    public int lag(int i) {
+        return lag[i];
+    }
+
+    public void setLag(int i, int lag) {
+        this.lag[i] = lag;
+    }
+
+    public int interval(int i) {
+        return interval[i];
+    }
+
+    public void setInterval(int i, int interval) {
+        this.interval[i] = (byte) interval;
+    }
+
+    public int coastUntil(int i) {
+        return coastUntil[i];
+    }
+
+    public void setCoastUntil(int i, int age) {
+        this.coastUntil[i] = age;
+    }
+
+    public void setAge(int i, int age) {
+        this.age[i] = age;
+    }
+}
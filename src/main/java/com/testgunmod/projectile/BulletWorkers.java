@@ -0,0 +1,39 @@
+package com.testgunmod.projectile;
+
+import com.testgunmod.Config;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared pool for the parallel bullet compute phase. Created on first use and
+ * sized from {@link Config#parallelThreads}.
+ */
+public class BulletWorkers {
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private static ForkJoinPool pool;
+
+    private BulletWorkers() {
+    }
+
+    static synchronized ForkJoinPool pool() {
+        if (pool == null) {
+            int threads = Config.parallelThreads > 0
+                    ? Config.parallelThreads
+                    : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            pool = new ForkJoinPool(threads, BulletWorkers::newThread, null, false);
+        }
+        return pool;
+    }
+
+    private static ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("Bullet Worker-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        thread.setContextClassLoader(BulletWorkers.class.getClassLoader());
+        return thread;
+    }
+}
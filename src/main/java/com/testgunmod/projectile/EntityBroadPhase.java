@@ -0,0 +1,209 @@
+package com.testgunmod.projectile;
+
+import com.testgunmod.entity.BulletEntity;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.phys.AABB;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Per-tick uniform grid of hittable entities, one cell per chunk section.
+ * A cell is filled from the level the first time any bullet queries it in a
+ * tick and is then shared by every other bullet passing through, so a
+ * stream of bullets down the same corridor costs one entity lookup per cell
+ * instead of one per bullet.
+ */
+public class EntityBroadPhase {
+
+    private static final Predicate<Entity> HITTABLE = e -> e.isAlive() && e.isPickable();
+
+    // Cells are filled lazily while other entities are still ticking; widen them so
+    // anything that moves into the cell later in the tick is still a candidate.
+    private static final double CELL_MARGIN = 2.0;
+
+    private static final long EMPTY_CELL = 0L;
+
+    private final ServerLevel level;
+
+    // Section key -> (start << 32 | count) into entities; the map's default value marks an unfilled cell.
+    private final Long2LongOpenHashMap cells = new Long2LongOpenHashMap();
+    private final ObjectArrayList<Entity> entities = new ObjectArrayList<>();
+    private long builtForTick = Long.MIN_VALUE;
+
+    private final double[] mainThreadFraction = new double[1];
+
+    EntityBroadPhase(ServerLevel level) {
+        this.level = level;
+        this.cells.defaultReturnValue(-1L);
+    }
+
+    /**
+     * Nearest entity whose box, grown by {@link BulletEntity#COLLISION_MARGIN}, the segment
+     * touches. The entry fraction along the segment is then available from {@link #hitFraction()}.
+     */
+    @Nullable
+    public Entity findNearestHit(double fromX, double fromY, double fromZ,
+                                 double toX, double toY, double toZ,
+                                 @Nullable Entity except, int exceptId) {
+        resetIfStale();
+        return search(fromX, fromY, fromZ, toX, toY, toZ, except, exceptId, true, mainThreadFraction, 0);
+    }
+
+    /**
+     * Fills every cell the segment can touch, so that {@link #findNearestHitPrepared} can run
+     * for it off the main thread.
+     */
+    public void prepare(double fromX, double fromY, double fromZ, double toX, double toY, double toZ) {
+        resetIfStale();
+        double margin = BulletEntity.COLLISION_MARGIN;
+        int minX = SectionPos.blockToSectionCoord(Math.min(fromX, toX) - margin);
+        int minY = SectionPos.blockToSectionCoord(Math.min(fromY, toY) - margin);
+        int minZ = SectionPos.blockToSectionCoord(Math.min(fromZ, toZ) - margin);
+        int maxX = SectionPos.blockToSectionCoord(Math.max(fromX, toX) + margin);
+        int maxY = SectionPos.blockToSectionCoord(Math.max(fromY, toY) + margin);
+        int maxZ = SectionPos.blockToSectionCoord(Math.max(fromZ, toZ) + margin);
+
+        for (int sx = minX; sx <= maxX; sx++) {
+            for (int sy = minY; sy <= maxY; sy++) {
+                for (int sz = minZ; sz <= maxZ; sz++) {
+                    cell(sx, sy, sz, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read-only variant of {@link #findNearestHit} for segments passed to {@link #prepare} this
+     * tick. Safe to call from several threads while the main thread waits; the entry fraction is
+     * written to {@code fractions[slot]}.
+     */
+    @Nullable
+    public Entity findNearestHitPrepared(double fromX, double fromY, double fromZ,
+                                         double toX, double toY, double toZ,
+                                         @Nullable Entity except, int exceptId,
+                                         double[] fractions, int slot) {
+        return search(fromX, fromY, fromZ, toX, toY, toZ, except, exceptId, false, fractions, slot);
+    }
+
+    /**
+     * Whether any hittable entity is in a cell the box, grown by
+     * {@link BulletEntity#COLLISION_MARGIN}, touches. Main thread only.
+     */
+    public boolean anyNear(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        resetIfStale();
+        double margin = BulletEntity.COLLISION_MARGIN;
+        for (int sx = SectionPos.blockToSectionCoord(minX - margin); sx <= SectionPos.blockToSectionCoord(maxX + margin); sx++) {
+            for (int sy = SectionPos.blockToSectionCoord(minY - margin); sy <= SectionPos.blockToSectionCoord(maxY + margin); sy++) {
+                for (int sz = SectionPos.blockToSectionCoord(minZ - margin); sz <= SectionPos.blockToSectionCoord(maxZ + margin); sz++) {
+                    if (cell(sx, sy, sz, true) != EMPTY_CELL) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    public double hitFraction() {
+        return mainThreadFraction[0];
+    }
+
+    /**
+     * Drops cells filled earlier in the tick, before entities moved.
+     */
+    public void invalidate() {
+        cells.clear();
+        entities.clear();
+        builtForTick = level.getGameTime();
+    }
+
+    private void resetIfStale() {
+        long gameTime = level.getGameTime();
+        if (gameTime != builtForTick) {
+            cells.clear();
+            entities.clear();
+            builtForTick = gameTime;
+        }
+    }
+
+    @Nullable
+    private Entity search(double fromX, double fromY, double fromZ,
+                          double toX, double toY, double toZ,
+                          @Nullable Entity except, int exceptId,
+                          boolean fillMissing, double[] fractions, int slot) {
+        double margin = BulletEntity.COLLISION_MARGIN;
+        int minX = SectionPos.blockToSectionCoord(Math.min(fromX, toX) - margin);
+        int minY = SectionPos.blockToSectionCoord(Math.min(fromY, toY) - margin);
+        int minZ = SectionPos.blockToSectionCoord(Math.min(fromZ, toZ) - margin);
+        int maxX = SectionPos.blockToSectionCoord(Math.max(fromX, toX) + margin);
+        int maxY = SectionPos.blockToSectionCoord(Math.max(fromY, toY) + margin);
+        int maxZ = SectionPos.blockToSectionCoord(Math.max(fromZ, toZ) + margin);
+
+        double deltaX = toX - fromX;
+        double deltaY = toY - fromY;
+        double deltaZ = toZ - fromZ;
+
+        Entity nearest = null;
+        double nearestFraction = Double.MAX_VALUE;
+
+        for (int sx = minX; sx <= maxX; sx++) {
+            for (int sy = minY; sy <= maxY; sy++) {
+                for (int sz = minZ; sz <= maxZ; sz++) {
+                    long cell = cell(sx, sy, sz, fillMissing);
+                    int start = (int) (cell >>> 32);
+                    int end = start + (int) cell;
+
+                    for (int i = start; i < end; i++) {
+                        Entity candidate = entities.get(i);
+                        if (candidate == except || candidate.getId() == exceptId || !candidate.isAlive()) {
+                            continue;
+                        }
+
+                        AABB box = candidate.getBoundingBox();
+                        double fraction = Intersections.segmentAabb(fromX, fromY, fromZ, deltaX, deltaY, deltaZ,
+                                box.minX - margin, box.minY - margin, box.minZ - margin,
+                                box.maxX + margin, box.maxY + margin, box.maxZ + margin);
+
+                        if (fraction != Intersections.MISS && fraction < nearestFraction) {
+                            nearest = candidate;
+                            nearestFraction = fraction;
+                        }
+                    }
+                }
+            }
+        }
+
+        fractions[slot] = nearestFraction;
+        return nearest;
+    }
+
+    private long cell(int sx, int sy, int sz, boolean fillMissing) {
+        long key = SectionPos.asLong(sx, sy, sz);
+        long cell = cells.get(key);
+        if (cell != -1L) {
+            return cell;
+        }
+        if (!fillMissing) {
+            return EMPTY_CELL;
+        }
+
+        int minX = SectionPos.sectionToBlockCoord(sx);
+        int minY = SectionPos.sectionToBlockCoord(sy);
+        int minZ = SectionPos.sectionToBlockCoord(sz);
+        List<Entity> found = level.getEntities((Entity) null,
+                new AABB(minX - CELL_MARGIN, minY - CELL_MARGIN, minZ - CELL_MARGIN,
+                        minX + 16 + CELL_MARGIN, minY + 16 + CELL_MARGIN, minZ + 16 + CELL_MARGIN),
+                HITTABLE);
+
+        cell = found.isEmpty() ? EMPTY_CELL : ((long) entities.size() << 32) | found.size();
+        entities.addAll(found);
+        cells.put(key, cell);
+        return cell;
+    }
+}
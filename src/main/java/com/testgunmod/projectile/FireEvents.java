@@ -0,0 +1,75 @@
+package com.testgunmod.projectile;
+
+import com.testgunmod.network.FireEventPacket;
+import com.testgunmod.network.ModNetwork;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraftforge.network.PacketDistributor;
+
+/**
+ * Shots fired in a level during a tick, summed per 16-block area and sent to
+ * nearby players as one {@link FireEventPacket} instead of a sound per shot.
+ * Clients turn the per-area rates into a few looping gunfire voices and
+ * muzzle smoke.
+ */
+public class FireEvents {
+
+    // Gunfire plays at up to twice the normal volume, which carries 32 blocks; smoke is seen further.
+    private static final double HEARING_RANGE = 64.0;
+
+    private final Long2IntOpenHashMap shotsPerArea = new Long2IntOpenHashMap();
+    // First shot position in each area, where its sound and smoke come from.
+    private final Long2LongOpenHashMap positions = new Long2LongOpenHashMap();
+
+    private final LongArrayList sendPositions = new LongArrayList();
+    private final IntArrayList sendShots = new IntArrayList();
+
+    public void record(BlockPos pos) {
+        record(pos.asLong());
+    }
+
+    public void record(long pos) {
+        long area = SectionPos.blockToSection(pos);
+        if (shotsPerArea.addTo(area, 1) == 0) {
+            positions.put(area, pos);
+        }
+    }
+
+    void flush(ServerLevel level) {
+        if (shotsPerArea.isEmpty()) {
+            return;
+        }
+
+        double rangeSq = HEARING_RANGE * HEARING_RANGE;
+        for (ServerPlayer player : level.players()) {
+            sendPositions.clear();
+            sendShots.clear();
+
+            ObjectIterator<Long2IntMap.Entry> iterator = shotsPerArea.long2IntEntrySet().fastIterator();
+            while (iterator.hasNext()) {
+                Long2IntMap.Entry entry = iterator.next();
+                long pos = positions.get(entry.getLongKey());
+                if (player.distanceToSqr(BlockPos.getX(pos) + 0.5, BlockPos.getY(pos) + 0.5, BlockPos.getZ(pos) + 0.5) <= rangeSq) {
+                    sendPositions.add(pos);
+                    sendShots.add(entry.getIntValue());
+                }
+            }
+
+            if (!sendPositions.isEmpty()) {
+                ModNetwork.CHANNEL.send(PacketDistributor.PLAYER.with(() -> player),
+                        new FireEventPacket(sendPositions.toLongArray(), sendShots.toIntArray()));
+            }
+        }
+
+        shotsPerArea.clear();
+        positions.clear();
+    }
+}
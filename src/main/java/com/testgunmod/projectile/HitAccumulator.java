@@ -0,0 +1,132 @@
+package com.testgunmod.projectile;
+
+import com.testgunmod.Config;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.core.Holder;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.damagesource.DamageSource;
+import net.minecraft.world.damagesource.DamageType;
+import net.minecraft.world.damagesource.DamageTypes;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.LivingEntity;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Bullet hits collected over a tick and applied once per target at its end,
+ * so a stream of bullets costs one {@code hurt} call, and one round of damage
+ * events, per target instead of one per bullet. How the hits on a target
+ * combine is set by {@link Config#damageStacking}. Hits from bullet entities
+ * keep the entity as the direct cause, so each lands on its own.
+ */
+public class HitAccumulator {
+
+    public enum Stacking {
+        /** Every hit counts in full. */
+        SUM,
+        /** Only the strongest hit counts. */
+        MAX,
+        /** Hits add up to at most {@link Config#damageStackCap}. */
+        SUM_CAPPED
+    }
+
+    private final ServerLevel level;
+
+    // Targets in the order they were first hit, so damage is applied in a stable order.
+    private final Reference2IntOpenHashMap<Entity> slots = new Reference2IntOpenHashMap<>();
+    private Entity[] targets = new Entity[16];
+    private Entity[] directs = new Entity[16];
+    private float[] damage = new float[16];
+    private int[] owners = new int[16];
+    private int size;
+
+    private Holder<DamageType> damageType;
+    private DamageSource ownerlessDamage;
+
+    HitAccumulator(ServerLevel level) {
+        this.level = level;
+        slots.defaultReturnValue(-1);
+    }
+
+    /**
+     * Adds a hit by the bullet entity {@code direct} on the target, on its own rather than
+     * merged with others, so the damage source names the bullet and its shooter.
+     */
+    public void add(Entity target, float amount, Entity direct, @Nullable Entity owner) {
+        int slot = newSlot(target, direct);
+        damage[slot] = amount;
+        owners[slot] = owner != null ? owner.getId() : -1;
+    }
+
+    /**
+     * Adds a hit by a virtual bullet on the target. The first hit with an owner decides who
+     * gets the credit.
+     */
+    void add(Entity target, float amount, int ownerId) {
+        int slot = slots.getInt(target);
+        if (slot < 0) {
+            slot = newSlot(target, null);
+            slots.put(target, slot);
+        }
+
+        damage[slot] = switch (Config.damageStacking) {
+            case MAX -> Math.max(damage[slot], amount);
+            case SUM_CAPPED -> Math.min((float) Config.damageStackCap, damage[slot] + amount);
+            default -> damage[slot] + amount;
+        };
+        if (owners[slot] < 0) {
+            owners[slot] = ownerId;
+        }
+    }
+
+    private int newSlot(Entity target, @Nullable Entity direct) {
+        int slot = size++;
+        if (slot == targets.length) {
+            targets = Arrays.copyOf(targets, slot * 2);
+            directs = Arrays.copyOf(directs, slot * 2);
+            damage = Arrays.copyOf(damage, slot * 2);
+            owners = Arrays.copyOf(owners, slot * 2);
+        }
+        targets[slot] = target;
+        directs[slot] = direct;
+        damage[slot] = 0.0f;
+        owners[slot] = -1;
+        return slot;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Hurts every target once with its combined damage, and once more per bullet entity hit.
+     */
+    public void apply() {
+        for (int slot = 0; slot < size; slot++) {
+            Entity target = targets[slot];
+            // Something else this tick may already have killed or removed it.
+            if (target.isAlive()) {
+                target.hurt(damageSource(directs[slot], owners[slot]), damage[slot]);
+            }
+            targets[slot] = null;
+            directs[slot] = null;
+        }
+        slots.clear();
+        size = 0;
+    }
+
+    private DamageSource damageSource(@Nullable Entity direct, int ownerId) {
+        Entity owner = ownerId >= 0 ? level.getEntity(ownerId) : null;
+        if (direct != null) {
+            return level.damageSources().mobProjectile(direct, owner instanceof LivingEntity living ? living : null);
+        }
+        if (damageType == null) {
+            damageType = level.registryAccess().registryOrThrow(Registries.DAMAGE_TYPE)
+                    .getHolderOrThrow(DamageTypes.MOB_PROJECTILE);
+            ownerlessDamage = new DamageSource(damageType);
+        }
+        return owner != null ? new DamageSource(damageType, null, owner) : ownerlessDamage;
+    }
+}
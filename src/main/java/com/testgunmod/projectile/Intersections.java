@@ -0,0 +1,68 @@
+package com.testgunmod.projectile;
+
+public final class Intersections {
+
+    public static final double MISS = -1.0;
+
+    private Intersections() {
+    }
+
+    /**
+     * Slab test of the segment {@code origin + t * delta}, {@code t} in [0, 1], against a box.
+     * Returns the entry fraction, 0 if the segment starts inside, or {@link #MISS}.
+     */
+    public static double segmentAabb(double originX, double originY, double originZ,
+                                     double deltaX, double deltaY, double deltaZ,
+                                     double minX, double minY, double minZ,
+                                     double maxX, double maxY, double maxZ) {
+        double near = 0.0;
+        double far = 1.0;
+
+        if (Math.abs(deltaX) < 1.0e-12) {
+            if (originX < minX || originX > maxX) {
+                return MISS;
+            }
+        } else {
+            double inverse = 1.0 / deltaX;
+            double t1 = (minX - originX) * inverse;
+            double t2 = (maxX - originX) * inverse;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+            if (near > far) {
+                return MISS;
+            }
+        }
+
+        if (Math.abs(deltaY) < 1.0e-12) {
+            if (originY < minY || originY > maxY) {
+                return MISS;
+            }
+        } else {
+            double inverse = 1.0 / deltaY;
+            double t1 = (minY - originY) * inverse;
+            double t2 = (maxY - originY) * inverse;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+            if (near > far) {
+                return MISS;
+            }
+        }
+
+        if (Math.abs(deltaZ) < 1.0e-12) {
+            if (originZ < minZ || originZ > maxZ) {
+                return MISS;
+            }
+        } else {
+            double inverse = 1.0 / deltaZ;
+            double t1 = (minZ - originZ) * inverse;
+            double t2 = (maxZ - originZ) * inverse;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+            if (near > far) {
+                return MISS;
+            }
+        }
+
+        return near;
+    }
+}
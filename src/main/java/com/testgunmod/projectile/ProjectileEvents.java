@@ -0,0 +1,93 @@
+package com.testgunmod.projectile;
+
+import com.testgunmod.Config;
+import com.testgunmod.TestGunMod;
+import com.testgunmod.block.TurretRegistry;
+import com.testgunmod.command.BulletsCommand;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraftforge.event.RegisterCommandsEvent;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.level.BlockEvent;
+import net.minecraftforge.event.level.ChunkEvent;
+import net.minecraftforge.event.level.LevelEvent;
+import net.minecraftforge.event.level.PistonEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+
+@Mod.EventBusSubscriber(modid = TestGunMod.MOD_ID, bus = Mod.EventBusSubscriber.Bus.FORGE)
+public class ProjectileEvents {
+
+    @SubscribeEvent
+    public static void onLevelTick(TickEvent.LevelTickEvent event) {
+        if (!(event.level instanceof ServerLevel serverLevel)) {
+            return;
+        }
+
+        // Turrets fire where their scheduled block ticks used to run, before entities tick.
+        if (event.phase == TickEvent.Phase.START) {
+            TurretRegistry.get(serverLevel).tick(serverLevel);
+            return;
+        }
+
+        BulletManager manager = BulletManager.getIfPresent(serverLevel);
+        // Nothing has fired since the level loaded, but bullets saved with it are waiting to resume.
+        if (manager == null && serverLevel.getGameTime() % 20 == 0 && BulletRegionStore.get(serverLevel).size() > 0) {
+            manager = BulletManager.get(serverLevel);
+        }
+        if (manager != null) {
+            manager.tick();
+
+            int interval = Config.metricsExportInterval * 20;
+            if (interval > 0 && serverLevel.getGameTime() % interval == 0) {
+                BulletMetricsReport.appendCsv(serverLevel, manager);
+                manager.metrics().reset();
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onRegisterCommands(RegisterCommandsEvent event) {
+        BulletsCommand.register(event.getDispatcher());
+    }
+
+    @SubscribeEvent
+    public static void onNeighborNotify(BlockEvent.NeighborNotifyEvent event) {
+        BlockRaycaster blocks = blocks(event.getLevel());
+        if (blocks != null) {
+            blocks.invalidate(event.getPos());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPistonMoved(PistonEvent.Post event) {
+        BlockRaycaster blocks = blocks(event.getLevel());
+        if (blocks != null) {
+            // A piston moves at most 12 blocks, each one further along.
+            blocks.invalidateRange(event.getPos(), 14);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onChunkUnload(ChunkEvent.Unload event) {
+        BlockRaycaster blocks = blocks(event.getLevel());
+        if (blocks != null) {
+            blocks.invalidateChunk(event.getChunk().getPos().x, event.getChunk().getPos().z);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel serverLevel) {
+            BulletManager.remove(serverLevel);
+        }
+    }
+
+    private static BlockRaycaster blocks(LevelAccessor level) {
+        if (level instanceof ServerLevel serverLevel) {
+            BulletManager manager = BulletManager.getIfPresent(serverLevel);
+            return manager != null ? manager.blocks() : null;
+        }
+        return null;
+    }
+}
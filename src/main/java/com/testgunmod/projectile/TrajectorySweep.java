@@ -0,0 +1,173 @@
+package com.testgunmod.projectile;
+
+import com.testgunmod.Config;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Entity;
+
+import javax.annotation.Nullable;
+
+/**
+ * Continuous collision for one tick, or a span of ticks, of a bullet's trajectory. It is split
+ * into as many straight sub-steps as its curvature needs (see
+ * {@link Ballistics#subSteps}), never fewer than the chord error allows and never
+ * longer than a tick once the cap is reached; when the bounds hold no blocks at all
+ * only the entity tests run along those sub-steps.
+ * <p>
+ * Fractions are in tick time, so the hit point is at
+ * {@code Ballistics.horizontal(origin, velocity, ticks, fraction)}. One instance
+ * per thread.
+ */
+public class TrajectorySweep {
+
+    private final double[] entityFraction = new double[1];
+
+    @Nullable
+    private Entity target;
+    private double targetFraction;
+    private double blockFraction;
+
+    private boolean timed;
+    private long clipNanos;
+    private long entityNanos;
+
+    /**
+     * Sweeps from tick {@code ticks} to {@code ticks + 1}. With {@code prepared} the entity
+     * cells must already be filled by {@link EntityBroadPhase#prepare}.
+     */
+    public void run(VoxelSource blocks, EntityBroadPhase broadPhase, boolean prepared,
+                    double originX, double originY, double originZ,
+                    double velocityX, double velocityY, double velocityZ, int ticks,
+                    @Nullable Entity except, int exceptId) {
+        run(blocks, broadPhase, prepared, originX, originY, originZ, velocityX, velocityY, velocityZ,
+                ticks, 1, except, exceptId);
+    }
+
+    /**
+     * Sweeps from tick {@code ticks} to {@code ticks + span} in one go, for bullets that are
+     * only stepped every few ticks. Fractions then run from 0 to {@code span}.
+     */
+    public void run(VoxelSource blocks, EntityBroadPhase broadPhase, boolean prepared,
+                    double originX, double originY, double originZ,
+                    double velocityX, double velocityY, double velocityZ, int ticks, int span,
+                    @Nullable Entity except, int exceptId) {
+        target = null;
+        targetFraction = Intersections.MISS;
+        blockFraction = Intersections.MISS;
+        clipNanos = 0L;
+        entityNanos = 0L;
+
+        double fromX = Ballistics.horizontal(originX, velocityX, ticks);
+        double fromY = Ballistics.vertical(originY, velocityY, ticks);
+        double fromZ = Ballistics.horizontal(originZ, velocityZ, ticks);
+        double endX = Ballistics.horizontal(originX, velocityX, ticks + span);
+        double endY = Ballistics.vertical(originY, velocityY, ticks + span);
+        double endZ = Ballistics.horizontal(originZ, velocityZ, ticks + span);
+
+        // The curve stays within the chord error of the straight segment.
+        double error = Ballistics.chordError(velocityX, velocityY, velocityZ, ticks, span);
+        boolean open = blocks.regionEmpty(
+                Mth.floor(Math.min(fromX, endX) - error), Mth.floor(Math.min(fromY, endY) - error),
+                Mth.floor(Math.min(fromZ, endZ) - error), Mth.floor(Math.max(fromX, endX) + error),
+                Mth.floor(Math.max(fromY, endY) + error), Mth.floor(Math.max(fromZ, endZ) + error));
+
+        // Entities under the arc matter as much as blocks, so an open span is split the same way;
+        // the cap still leaves at least one chord per tick.
+        int subSteps = Ballistics.subSteps(error, Config.maxPathError, Config.maxSubSteps * span);
+
+        for (int step = 0; step < subSteps; step++) {
+            double toX;
+            double toY;
+            double toZ;
+            if (step == subSteps - 1) {
+                toX = endX;
+                toY = endY;
+                toZ = endZ;
+            } else {
+                double fraction = (double) (step + 1) * span / subSteps;
+                toX = Ballistics.horizontal(originX, velocityX, ticks, fraction);
+                toY = Ballistics.vertical(originY, velocityY, ticks, fraction);
+                toZ = Ballistics.horizontal(originZ, velocityZ, ticks, fraction);
+            }
+
+            long start = timed ? System.nanoTime() : 0L;
+            if (!open && blockFraction == Intersections.MISS) {
+                double hit = VoxelRaycast.trace(blocks, fromX, fromY, fromZ, toX, toY, toZ);
+                if (hit != Intersections.MISS) {
+                    blockFraction = (step + hit) * span / subSteps;
+                }
+            }
+            long clipped = timed ? System.nanoTime() : 0L;
+
+            if (target == null) {
+                Entity found;
+                double fraction;
+                if (prepared) {
+                    found = broadPhase.findNearestHitPrepared(fromX, fromY, fromZ, toX, toY, toZ,
+                            except, exceptId, entityFraction, 0);
+                    fraction = entityFraction[0];
+                } else {
+                    found = broadPhase.findNearestHit(fromX, fromY, fromZ, toX, toY, toZ, except, exceptId);
+                    fraction = broadPhase.hitFraction();
+                }
+                if (found != null) {
+                    target = found;
+                    targetFraction = (step + fraction) * span / subSteps;
+                }
+            }
+
+            if (timed) {
+                clipNanos += clipped - start;
+                entityNanos += System.nanoTime() - clipped;
+            }
+
+            // Anything past a block cannot be hit; keep tracing blocks past an entity
+            // in case the entity is gone by the time the hit is applied.
+            if (blockFraction != Intersections.MISS) {
+                break;
+            }
+
+            fromX = toX;
+            fromY = toY;
+            fromZ = toZ;
+        }
+
+        if (target != null && blockFraction != Intersections.MISS && targetFraction > blockFraction) {
+            target = null;
+            targetFraction = Intersections.MISS;
+        }
+    }
+
+    /**
+     * Whether following runs split their time into {@link #clipNanos} and {@link #entityNanos}.
+     */
+    public void setTimed(boolean timed) {
+        this.timed = timed;
+    }
+
+    public long clipNanos() {
+        return clipNanos;
+    }
+
+    public long entityNanos() {
+        return entityNanos;
+    }
+
+    /**
+     * Entity hit before any block, or null.
+     */
+    @Nullable
+    public Entity target() {
+        return target;
+    }
+
+    public double targetFraction() {
+        return targetFraction;
+    }
+
+    /**
+     * First block hit along the whole tick, or {@link Intersections#MISS}.
+     */
+    public double blockFraction() {
+        return blockFraction;
+    }
+}
@@ -0,0 +1,90 @@
+package com.testgunmod.projectile;
+
+import com.testgunmod.entity.BulletEntity;
+import net.minecraft.util.Mth;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Per-tick yaw and pitch for a launch velocity shared by many bullets, such as
+ * the six turret velocities, so those bullets orient themselves without any
+ * trigonometry. Positions and velocities need no table of their own: they are
+ * already a multiply-add on {@link Ballistics}' drag tables.
+ * <p>
+ * Angles match what {@code atan2} on the bullet's velocity would give, and are
+ * NaN where the bullet is too close to vertical to have a heading.
+ */
+public final class TrajectoryTable {
+
+    private static final double RADIANS_TO_DEGREES = 57.2957795;
+
+    private static volatile TrajectoryTable[] tables = new TrajectoryTable[0];
+
+    private final double velocityX;
+    private final double velocityY;
+    private final double velocityZ;
+    private final float[] yaw;
+    private final float[] pitch;
+
+    private TrajectoryTable(double velocityX, double velocityY, double velocityZ) {
+        this.velocityX = velocityX;
+        this.velocityY = velocityY;
+        this.velocityZ = velocityZ;
+
+        int length = BulletEntity.MAX_LIFETIME_TICKS + 2;
+        this.yaw = new float[length];
+        this.pitch = new float[length];
+        for (int n = 0; n < length; n++) {
+            double vx = Ballistics.horizontalVelocity(velocityX, n);
+            double vy = Ballistics.verticalVelocity(velocityY, n);
+            double vz = Ballistics.horizontalVelocity(velocityZ, n);
+            double horizontal = Math.sqrt(vx * vx + vz * vz);
+            if (horizontal > 0.001) {
+                yaw[n] = (float) (Mth.atan2(vx, vz) * RADIANS_TO_DEGREES);
+                pitch[n] = (float) (Mth.atan2(vy, horizontal) * RADIANS_TO_DEGREES);
+            } else {
+                yaw[n] = Float.NaN;
+                pitch[n] = Float.NaN;
+            }
+        }
+    }
+
+    /**
+     * Builds and keeps a table for the velocity. Meant for a handful of fixed velocities
+     * registered during startup.
+     */
+    public static synchronized TrajectoryTable register(double velocityX, double velocityY, double velocityZ) {
+        TrajectoryTable existing = find(velocityX, velocityY, velocityZ);
+        if (existing != null) {
+            return existing;
+        }
+        TrajectoryTable table = new TrajectoryTable(velocityX, velocityY, velocityZ);
+        TrajectoryTable[] grown = Arrays.copyOf(tables, tables.length + 1);
+        grown[tables.length] = table;
+        tables = grown;
+        return table;
+    }
+
+    @Nullable
+    public static TrajectoryTable find(double velocityX, double velocityY, double velocityZ) {
+        for (TrajectoryTable table : tables) {
+            if (table.velocityX == velocityX && table.velocityY == velocityY && table.velocityZ == velocityZ) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    public int length() {
+        return yaw.length;
+    }
+
+    public float yaw(int ticks) {
+        return yaw[ticks];
+    }
+
+    public float pitch(int ticks) {
+        return pitch[ticks];
+    }
+}
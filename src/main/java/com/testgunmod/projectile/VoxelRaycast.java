@@ -0,0 +1,84 @@
+package com.testgunmod.projectile;
+
+/**
+ * Grid traversal (Amanatides and Woo) visiting every block a segment passes
+ * through, in order, without allocating.
+ */
+public final class VoxelRaycast {
+
+    private VoxelRaycast() {
+    }
+
+    /**
+     * Fraction along the segment of its first block hit, or {@link Intersections#MISS}.
+     */
+    public static double trace(VoxelSource source,
+                               double fromX, double fromY, double fromZ,
+                               double toX, double toY, double toZ) {
+        double deltaX = toX - fromX;
+        double deltaY = toY - fromY;
+        double deltaZ = toZ - fromZ;
+
+        int x = floor(fromX);
+        int y = floor(fromY);
+        int z = floor(fromZ);
+        int endX = floor(toX);
+        int endY = floor(toY);
+        int endZ = floor(toZ);
+
+        int stepX = deltaX > 0 ? 1 : deltaX < 0 ? -1 : 0;
+        int stepY = deltaY > 0 ? 1 : deltaY < 0 ? -1 : 0;
+        int stepZ = deltaZ > 0 ? 1 : deltaZ < 0 ? -1 : 0;
+
+        double tDeltaX = stepX != 0 ? Math.abs(1.0 / deltaX) : Double.MAX_VALUE;
+        double tDeltaY = stepY != 0 ? Math.abs(1.0 / deltaY) : Double.MAX_VALUE;
+        double tDeltaZ = stepZ != 0 ? Math.abs(1.0 / deltaZ) : Double.MAX_VALUE;
+
+        double tMaxX = stepX > 0 ? (x + 1 - fromX) * tDeltaX : stepX < 0 ? (fromX - x) * tDeltaX : Double.MAX_VALUE;
+        double tMaxY = stepY > 0 ? (y + 1 - fromY) * tDeltaY : stepY < 0 ? (fromY - y) * tDeltaY : Double.MAX_VALUE;
+        double tMaxZ = stepZ > 0 ? (z + 1 - fromZ) * tDeltaZ : stepZ < 0 ? (fromZ - z) * tDeltaZ : Double.MAX_VALUE;
+
+        double t = 0.0;
+        int remaining = Math.abs(endX - x) + Math.abs(endY - y) + Math.abs(endZ - z);
+
+        while (true) {
+            byte flags = source.flags(x, y, z);
+            if (flags == VoxelSource.FULL) {
+                return t;
+            }
+            if (flags == VoxelSource.COMPLEX) {
+                double hit = source.clipComplex(x, y, z, fromX, fromY, fromZ, toX, toY, toZ);
+                if (hit != Intersections.MISS) {
+                    return hit;
+                }
+            }
+
+            if (remaining-- <= 0) {
+                return Intersections.MISS;
+            }
+
+            if (tMaxX < tMaxY && tMaxX < tMaxZ) {
+                t = tMaxX;
+                tMaxX += tDeltaX;
+                x += stepX;
+            } else if (tMaxY < tMaxZ) {
+                t = tMaxY;
+                tMaxY += tDeltaY;
+                y += stepY;
+            } else {
+                t = tMaxZ;
+                tMaxZ += tDeltaZ;
+                z += stepZ;
+            }
+
+            if (t > 1.0) {
+                return Intersections.MISS;
+            }
+        }
+    }
+
+    private static int floor(double value) {
+        int i = (int) value;
+        return value < i ? i - 1 : i;
+    }
+}
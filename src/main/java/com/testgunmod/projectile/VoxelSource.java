@@ -0,0 +1,30 @@
+package com.testgunmod.projectile;
+
+/**
+ * Block occupancy as seen by {@link VoxelRaycast}. Most blocks are either
+ * empty or a full cube and are answered from {@link #flags}; only blocks
+ * reported as {@link #COMPLEX} fall back to an exact shape test.
+ */
+public interface VoxelSource {
+
+    byte EMPTY = 0;
+    byte FULL = 1;
+    byte COMPLEX = 2;
+
+    byte flags(int x, int y, int z);
+
+    /**
+     * Coarse check that no block in the box (inclusive block coordinates) has a collision
+     * shape. May answer false when unsure.
+     */
+    default boolean regionEmpty(int minX, int minY, int minZ, int maxX, int maxY, int maxZ) {
+        return false;
+    }
+
+    /**
+     * Entry fraction of the segment into the complex block at (x, y, z), or {@link Intersections#MISS}.
+     */
+    double clipComplex(int x, int y, int z,
+                       double fromX, double fromY, double fromZ,
+                       double toX, double toY, double toZ);
+}